@@ -2,11 +2,13 @@
 * Author: Zhou Yiqun
 */
 CREATE TABLE Products (
-                          ProductID TEXT PRIMARY KEY AUTO_INCREMENT,
-                          Name TEXT NOT NULL,
-                          Category TEXT NOT NULL,
-                          GroupID TEXT NOT NULL,
+                          ProductID BIGINT NOT NULL PRIMARY KEY,
+                          Name VARCHAR(100) NOT NULL,
+                          Category VARCHAR(100) NOT NULL,
+                          GroupID VARCHAR(100) NOT NULL,
                           LocationX INTEGER,
                           LocationY INTEGER,
-                          Weight DOUBLE NOT NULL
+                          Weight DOUBLE NOT NULL,
+                          INDEX idx_products_location (LocationX, LocationY),
+                          INDEX idx_products_sku (Name, Category)
 );
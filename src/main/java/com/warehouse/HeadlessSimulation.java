@@ -0,0 +1,110 @@
+package com.warehouse;
+
+import com.warehouse.config.ConfigLoader;
+import com.warehouse.dispatch.DispatchPolicies;
+import com.warehouse.inventory.SlottingStrategies;
+import com.warehouse.entity.Robot;
+import com.warehouse.repository.JournalProductStore;
+import com.warehouse.service.CustomerOrderUnit;
+import com.warehouse.service.Supervisor;
+import com.warehouse.service.SupplyUnit;
+import com.warehouse.service.WavePlanner;
+import com.warehouse.simulation.ExecutionMode;
+import com.warehouse.simulation.MovementScheduler;
+import com.warehouse.simulation.VirtualClock;
+import com.warehouse.view.WarehouseGrid;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 无界面仿真入口
+ * 使用虚拟时钟运行一个完整班次，不启动GUI和数据库（可选本地日志），结束后输出吞吐量和机器人里程，
+ * 用于比较不同配置（机器人数量、规划器、柜台数量）下的产能。
+ * 参数：[配置文件] [班次小时数]
+ */
+public class HeadlessSimulation {
+    private static final double DEFAULT_SHIFT_HOURS = 8;
+
+    public static void main(String[] args) {
+        String configFilePath = args.length > 0 ? args[0] : "ConfigFile.csv";
+        double shiftHours = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_SHIFT_HOURS;
+        System.setProperty("java.awt.headless", "true");
+
+        VirtualClock clock = new VirtualClock();
+        // 主线程也参与仿真，在它进入 sleep 之前虚拟时间不会前进
+        clock.enter();
+        try {
+            ConfigLoader configLoader = new ConfigLoader();
+            configLoader.setClock(clock);
+            WarehouseGrid grid = configLoader.loadConfig(new File(configFilePath));
+
+            MovementScheduler movementScheduler = new MovementScheduler(clock);
+            movementScheduler.attach(grid.getRobots());
+            movementScheduler.start();
+
+            // 配置了本地日志时恢复上次的在库货物，可以接着上一个班次继续仿真
+            JournalProductStore journal = null;
+            if (Main.JOURNAL.equals(configLoader.getPersistence())) {
+                journal = JournalProductStore.open(Paths.get(configLoader.getJournalDirectory()),
+                        configLoader.getJournalSnapshotInterval());
+                Main.restoreInventory(grid, journal);
+                System.out.println("Restored " + grid.getStoredProductCount() + " products from journal");
+            }
+
+            ExecutionMode executionMode = configLoader.getExecutionMode();
+            Supervisor supervisor = new Supervisor(grid, clock, executionMode);
+            supervisor.setProductStore(journal);
+            supervisor.setDispatchPolicy(DispatchPolicies.create(configLoader.getDispatchPolicyName(), grid, clock));
+            supervisor.setBatchDispatch(configLoader.getBatchWindowMillis(), configLoader.getBatchSize());
+            supervisor.setSlottingStrategy(SlottingStrategies.create(configLoader.getSlottingStrategyName(), grid));
+            SupplyUnit supplyUnit = new SupplyUnit(supervisor, configLoader);
+            CustomerOrderUnit customerOrderUnit = new CustomerOrderUnit(supervisor, configLoader);
+            supplyUnit.setClock(clock);
+            customerOrderUnit.setClock(clock);
+            customerOrderUnit.setSupplyUnit(supplyUnit);
+            customerOrderUnit.setWavePlanner(new WavePlanner(grid, configLoader.getWaveWindowMillis(),
+                    configLoader.getWaveOrders(), configLoader.getWaveItems()));
+            executionMode.newThread(clock.participant(supplyUnit), "SupplyUnit-Thread").start();
+            executionMode.newThread(clock.participant(customerOrderUnit), "CustomerOrderUnit-Thread").start();
+
+            System.out.println("Simulating " + shiftHours + " hour shift...");
+            long wallStart = System.nanoTime();
+            clock.sleep((long) (shiftHours * TimeUnit.HOURS.toMillis(1)));
+            long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wallStart);
+
+            supplyUnit.stop();
+            customerOrderUnit.stop();
+            movementScheduler.stop();
+            if (journal != null) {
+                journal.close();
+            }
+            printSummary(supervisor, grid, shiftHours, wallMillis);
+        } catch (IOException e) {
+            System.err.println("Error loading configuration: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("Error restoring inventory: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.exit(0);
+    }
+
+    private static void printSummary(Supervisor supervisor, WarehouseGrid grid, double shiftHours, long wallMillis) {
+        System.out.println("Simulated " + shiftHours + " hours in " + wallMillis + " ms");
+        System.out.println("Tasks completed: " + supervisor.getCompletedTasks());
+        System.out.println("Tasks failed: " + supervisor.getFailedTasks());
+        System.out.println("Products stored: " + supervisor.getStoredProducts());
+        System.out.println("Products picked: " + supervisor.getPickedProducts());
+        System.out.printf("Throughput: %.1f tasks/hour%n", supervisor.getCompletedTasks() / shiftHours);
+        System.out.printf("Average task latency: %.1f s%n", supervisor.getAverageLatencyMillis() / 1000.0);
+        System.out.printf("Outbound distance per pick: %.1f cells%n", supervisor.getOutboundDistancePerPick());
+        for (Robot robot : grid.getRobots()) {
+            System.out.println("Robot " + robot.getName() + ": distance " + robot.getDistanceTravelled()
+                    + " cells, battery " + robot.getBattery() + "%");
+        }
+    }
+}
@@ -1,20 +1,43 @@
 package com.warehouse;
 
 import com.warehouse.config.ConfigLoader;
+import com.warehouse.config.ConfigWatcher;
+import com.warehouse.dispatch.DispatchPolicies;
+import com.warehouse.inventory.SlottingStrategies;
+import com.warehouse.model.Product;
 import com.warehouse.repository.DatabaseManager;
+import com.warehouse.repository.JournalProductStore;
+import com.warehouse.repository.ProductStore;
+import com.warehouse.repository.WriteBehindProductStore;
 import com.warehouse.service.CustomerOrderUnit;
+import com.warehouse.service.InventoryLoader;
 import com.warehouse.service.Supervisor;
 import com.warehouse.service.SupplyUnit;
+import com.warehouse.service.WavePlanner;
+import com.warehouse.simulation.ExecutionMode;
+import com.warehouse.simulation.MovementScheduler;
+import com.warehouse.simulation.SystemClock;
 import com.warehouse.view.SupervisorGUI;
 import com.warehouse.view.WarehouseGrid;
 
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
 public class Main {
+    static final String JOURNAL = "journal";
 
     public static void main(String[] args) {
+        // --headless [配置文件] [班次小时数]：虚拟时间无界面仿真
+        if (args.length > 0 && "--headless".equals(args[0])) {
+            HeadlessSimulation.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         String configFilePath = "ConfigFile.csv";
 
         if (args.length > 0) {
@@ -26,21 +49,61 @@ public class Main {
             System.out.println("Loading configuration...");
             ConfigLoader configLoader = new ConfigLoader();
             WarehouseGrid grid = configLoader.loadConfig(new File(configFilePath));
-            // 初始化数据库
-            System.out.println("Initializing database...");
-            DatabaseManager databaseManager = new DatabaseManager();
-            databaseManager.connect();
+            // 启动移动调度器，所有机器人共用一个移动线程
+            MovementScheduler movementScheduler = new MovementScheduler();
+            movementScheduler.attach(grid.getRobots());
+            movementScheduler.start();
+            // 初始化持久化：本地日志（恢复上次的在库货物）或 MySQL（每次启动清空）
+            ProductStore productStore;
+            Runnable closeProductStore;
+            DatabaseManager warmStartSource = null;
+            if (JOURNAL.equals(configLoader.getPersistence())) {
+                System.out.println("Opening inventory journal...");
+                JournalProductStore journal = JournalProductStore.open(
+                        Paths.get(configLoader.getJournalDirectory()), configLoader.getJournalSnapshotInterval());
+                restoreInventory(grid, journal);
+                productStore = journal;
+                closeProductStore = journal::close;
+            } else {
+                System.out.println("Initializing database...");
+                DatabaseManager databaseManager = new DatabaseManager(configLoader.getDbPoolSize());
+                // 热启动时保留上次的在库货物，Supervisor 启动后在后台加载
+                boolean warmStart = configLoader.isDbWarmStart();
+                databaseManager.connect(!warmStart);
+                if (warmStart) {
+                    warmStartSource = databaseManager;
+                }
+                // 货物出入库异步批量写库，机器人线程不等待数据库
+                WriteBehindProductStore writeBehind = new WriteBehindProductStore(databaseManager,
+                        configLoader.getDbQueueCapacity(), configLoader.getDbFlushMillis(),
+                        configLoader.getDbBatchSize());
+                writeBehind.start();
+                productStore = writeBehind;
+                closeProductStore = () -> {
+                    writeBehind.close();
+                    databaseManager.closeConnection();
+                };
+            }
             // 创建Supervisor
             System.out.println("Starting supervisor...");
-            Supervisor supervisor = new Supervisor(grid);
-            supervisor.setDatabaseManager(databaseManager);
+            ExecutionMode executionMode = configLoader.getExecutionMode();
+            Supervisor supervisor = new Supervisor(grid, SystemClock.INSTANCE, executionMode);
+            supervisor.setDispatchPolicy(DispatchPolicies.create(configLoader.getDispatchPolicyName(), grid,
+                    SystemClock.INSTANCE));
+            supervisor.setBatchDispatch(configLoader.getBatchWindowMillis(), configLoader.getBatchSize());
+            supervisor.setSlottingStrategy(SlottingStrategies.create(configLoader.getSlottingStrategyName(), grid));
+            supervisor.setProductStore(productStore);
+            if (warmStartSource != null) {
+                new InventoryLoader(warmStartSource, supervisor).start();
+            }
 
             // 启动GUI
             SupervisorGUI gui = new SupervisorGUI(grid);
+            gui.setLogRetention(configLoader.getLogRetention());
+            gui.setDetailLogging(configLoader.isLogDetail());
             supervisor.setLogListener(gui);
             System.out.println("Launching GUI...");
 
-            final String finalConfigFilePath = configFilePath;
             SwingUtilities.invokeLater(() -> {
                 gui.setSupervisor(supervisor);
                 gui.setVisible(true);
@@ -48,14 +111,20 @@ public class Main {
 
             // 启动业务线程
             System.out.println("Starting supply and customer order units...");
-            SupplyUnit supplyUnit = new SupplyUnit(supervisor, finalConfigFilePath);
-            CustomerOrderUnit customerOrderUnit = new CustomerOrderUnit(supervisor, finalConfigFilePath);
+            SupplyUnit supplyUnit = new SupplyUnit(supervisor, configLoader);
+            CustomerOrderUnit customerOrderUnit = new CustomerOrderUnit(supervisor, configLoader);
             customerOrderUnit.setSupplyUnit(supplyUnit);
+            customerOrderUnit.setWavePlanner(new WavePlanner(grid, configLoader.getWaveWindowMillis(),
+                    configLoader.getWaveOrders(), configLoader.getWaveItems()));
             gui.setSupplyUnit(supplyUnit);
             gui.setCustomerOrderUnit(customerOrderUnit);
 
-            new Thread(supplyUnit, "SupplyUnit-Thread").start();
-            new Thread(customerOrderUnit, "CustomerOrderUnit-Thread").start();
+            executionMode.newThread(supplyUnit, "SupplyUnit-Thread").start();
+            executionMode.newThread(customerOrderUnit, "CustomerOrderUnit-Thread").start();
+
+            // 监视配置文件，柜台数量和机器人速度的修改即时生效
+            ConfigWatcher configWatcher = new ConfigWatcher(configLoader, new File(configFilePath), grid);
+            configWatcher.start();
 
             System.out.println("System started successfully!");
 
@@ -65,7 +134,13 @@ public class Main {
                 supplyUnit.stop();
                 customerOrderUnit.stop();
                 supervisor.shutdown();
-                databaseManager.closeConnection();
+                movementScheduler.stop();
+                try {
+                    configWatcher.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to stop config watcher: " + e.getMessage());
+                }
+                closeProductStore.run();
             }));
 
         } catch (IOException e) {
@@ -76,4 +151,30 @@ public class Main {
             e.printStackTrace();
         }
     }
+
+    /**
+     * 把日志中恢复出的货物放回货架；布局改变后放不下的货物在日志中记为拒收，不删除
+     * 以前拒收的货物在在库货物之后再尝试上架，放得下的恢复为在库货物
+     */
+    static void restoreInventory(WarehouseGrid grid, JournalProductStore journal) throws SQLException {
+        Collection<Product> previouslyRejected = journal.getRejected();
+        List<Product> rejected = grid.restoreProducts(journal.getProducts());
+        for (Product product : rejected) {
+            journal.reject(product);
+        }
+        if (!rejected.isEmpty()) {
+            System.err.println("Rejected " + rejected.size()
+                    + " journaled products that no longer fit the layout; they are kept in the journal.");
+        }
+        int returned = 0;
+        for (Product product : previouslyRejected) {
+            if (grid.restoreProduct(product)) {
+                journal.store(product);
+                returned++;
+            }
+        }
+        if (returned > 0) {
+            System.out.println("Returned " + returned + " previously rejected products to the shelves.");
+        }
+    }
 }
@@ -1,26 +1,43 @@
 package com.warehouse.config;
 
+import com.warehouse.dispatch.DispatchPolicies;
 import com.warehouse.entity.Robot;
+import com.warehouse.inventory.SlottingStrategies;
+import com.warehouse.pathfinding.AStarPlanner;
+import com.warehouse.pathfinding.CooperativePlanner;
+import com.warehouse.pathfinding.DistanceFieldCache;
+import com.warehouse.pathfinding.GridMap;
+import com.warehouse.pathfinding.LandmarkPlanner;
+import com.warehouse.pathfinding.PathPlanner;
+import com.warehouse.pathfinding.PathPlanners;
+import com.warehouse.pathfinding.ReservationTable;
+import com.warehouse.simulation.ExecutionMode;
+import com.warehouse.simulation.SimulationClock;
+import com.warehouse.simulation.SystemClock;
 import com.warehouse.view.WarehouseGrid;
 
 import java.awt.*;
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 配置加载器
- * 负责从CSV文件加载仓库配置
+ * 负责从CSV文件加载仓库配置并构建仓库。配置解析为不可变的 {@link WarehouseConfig} 快照，
+ * 文件变化时通过 {@link #reload} 整体替换快照，出入库柜台数量和机器人速度即时生效
  */
 public class ConfigLoader {
 
-    private int gridWidth;
-    private int gridHeight;
-    private int numberOfInboundCounters;
-    private int numberOfOutboundCounters;
-    private int numberOfChargingStations;
-    private int numberOfRobots;
-    private List<String[]> configLines;
+    private volatile WarehouseConfig config;
+    private SimulationClock clock = SystemClock.INSTANCE;
+
+    /**
+     * 设置仿真时钟，预约表的时刻和机器人的延时都以它为准，需在 loadConfig 之前调用
+     */
+    public void setClock(SimulationClock clock) {
+        this.clock = clock;
+    }
 
     public WarehouseGrid loadConfig(File configFile) throws IOException {
         String fileName = configFile.getName();
@@ -32,19 +49,13 @@ public class ConfigLoader {
     }
 
     private WarehouseGrid loadFromCSV(File configFile) throws IOException {
-        configLines = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(configFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                configLines.add(line.split(","));
-            }
-        }
+        config = WarehouseConfig.load(configFile.toPath());
 
         int cellSize = 30;
-        gridWidth = Integer.parseInt(configLines.get(0)[0]);
-        gridHeight = Integer.parseInt(configLines.get(0)[1]);
+        int gridWidth = config.getGridWidth();
+        int gridHeight = config.getGridHeight();
 
-        int numberOfShelves = Integer.parseInt(configLines.get(1)[0]);
+        int numberOfShelves = config.getNumberOfShelves();
         int widthOfShelf = 2;
         int heightOfShelf = gridHeight - 2;
 
@@ -57,92 +68,287 @@ public class ConfigLoader {
             }
         }
 
-        numberOfInboundCounters = Integer.parseInt(configLines.get(2)[0]);
-        List<Point> inboundCounters = new ArrayList<>();
-        for (int i = 0; i < numberOfInboundCounters; i++) {
-            inboundCounters.add(new Point(0, 2 * i));
+        GridMap gridMap = new GridMap(gridWidth, gridHeight, shelves);
+        String plannerName = getOption("planner", PathPlanners.BFS);
+        long fieldBudget = Long.parseLong(getOption("distance.budget",
+                String.valueOf(DistanceFieldCache.DEFAULT_BUDGET)));
+        DistanceFieldCache distanceFields = new DistanceFieldCache(gridMap, fieldBudget);
+        ReservationTable reservations = null;
+        if (PathPlanners.COOPERATIVE.equals(plannerName)) {
+            reservations = new ReservationTable(gridMap.getCellCount(),
+                    Integer.parseInt(getOption("reservation.window", "32")),
+                    Long.parseLong(getOption("reservation.tick", "100")),
+                    clock::nanoTime);
         }
 
-        numberOfOutboundCounters = Integer.parseInt(configLines.get(3)[0]);
-        List<Point> outboundCounters = new ArrayList<>();
-        for (int i = 0; i < numberOfOutboundCounters; i++) {
-            outboundCounters.add(new Point(gridWidth - 1, 2 * i));
-        }
+        List<Point> inboundCounters = inboundCounters(config);
+        List<Point> outboundCounters = outboundCounters(config);
 
-        numberOfChargingStations = Integer.parseInt(configLines.get(4)[0]);
         List<Point> chargingStations = new ArrayList<>();
-        for (int i = 0; i < numberOfChargingStations; i++) {
+        for (int i = 0; i < config.getNumberOfChargingStations(); i++) {
             chargingStations.add(new Point(2 * i, gridHeight - 1));
         }
 
-        numberOfRobots = Integer.parseInt(configLines.get(5)[0]);
         ArrayList<Robot> robots = new ArrayList<>();
         ArrayList<Character> names = new ArrayList<>();
         for (char c = 'A'; c <= 'Z'; c++) {
             names.add(c);
         }
 
-        for (int i = 0; i < numberOfRobots; i++) {
-            int robotCapacity = Integer.parseInt(configLines.get(5)[i + 1]);
-            int robotSpeed = Integer.parseInt(configLines.get(6)[i]);
+        // 每趟最大载重，0表示只按件数限制
+        double maxWeight = Double.parseDouble(getOption("robot.maxweight", "0"));
+        for (int i = 0; i < config.getNumberOfRobots(); i++) {
+            int robotCapacity = config.getRobotCapacity(i);
+            int robotSpeed = config.getRobotSpeed(i);
             int robotId = i + 1;
             Point initialPosition = chargingStations.get(i);
             Robot robot = new Robot(robotId, initialPosition.x, initialPosition.y, robotCapacity,
-                    chargingStations, gridWidth, gridHeight, shelves, names.get(i), robotSpeed);
+                    chargingStations,
+                    createPlanner(plannerName, gridMap, distanceFields, reservations, robotId, robotSpeed),
+                    names.get(i), robotSpeed);
+            robot.setClock(clock);
+            robot.setMaxWeight(maxWeight);
             robots.add(robot);
         }
 
-        return new WarehouseGrid(cellSize, gridWidth, gridHeight, shelves,
-                inboundCounters, outboundCounters, chargingStations, robots);
+        WarehouseGrid grid = new WarehouseGrid(cellSize, gridWidth, gridHeight, shelves,
+                inboundCounters, outboundCounters, chargingStations, robots, distanceFields);
+        distanceFields.rebuild(gridMap, grid.getLandmarks());
+        return grid;
+    }
+
+    private static List<Point> inboundCounters(WarehouseConfig config) {
+        List<Point> counters = new ArrayList<>();
+        for (int i = 0; i < config.getNumberOfInboundCounters(); i++) {
+            counters.add(new Point(0, 2 * i));
+        }
+        return counters;
+    }
+
+    private static List<Point> outboundCounters(WarehouseConfig config) {
+        List<Point> counters = new ArrayList<>();
+        for (int i = 0; i < config.getNumberOfOutboundCounters(); i++) {
+            counters.add(new Point(config.getGridWidth() - 1, 2 * i));
+        }
+        return counters;
+    }
+
+    /**
+     * 重新读取配置文件，把出入库柜台数量和机器人速度的变化应用到正在运行的仓库。
+     * 新配置全部校验通过后才生效；尺寸、货架、机器人数量等布局变化或选项变化需要重启，此时保留原配置。
+     *
+     * @return 新配置已生效时返回true
+     */
+    public synchronized boolean reload(File configFile, WarehouseGrid grid) {
+        WarehouseConfig next;
+        try {
+            next = WarehouseConfig.load(configFile.toPath());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Config reload failed, keeping current config: " + e.getMessage());
+            return false;
+        }
+        WarehouseConfig current = config;
+        if (!next.hasSameLayout(current)) {
+            System.err.println("Config layout or options changed; restart to apply. Keeping current config.");
+            return false;
+        }
+        int maxCounters = (current.getGridHeight() + 1) / 2;
+        if (next.getNumberOfInboundCounters() < 1 || next.getNumberOfInboundCounters() > maxCounters
+                || next.getNumberOfOutboundCounters() < 1 || next.getNumberOfOutboundCounters() > maxCounters) {
+            System.err.println("Config reload rejected: counter counts must be between 1 and " + maxCounters);
+            return false;
+        }
+
+        if (next.getNumberOfInboundCounters() != current.getNumberOfInboundCounters()
+                || next.getNumberOfOutboundCounters() != current.getNumberOfOutboundCounters()) {
+            grid.setCounters(inboundCounters(next), outboundCounters(next));
+        }
+        List<Robot> robots = grid.getRobots();
+        for (int i = 0; i < robots.size(); i++) {
+            robots.get(i).setSpeed(next.getRobotSpeed(i));
+        }
+        config = next;
+        System.out.println("Config reloaded: " + next.getNumberOfInboundCounters() + " inbound / "
+                + next.getNumberOfOutboundCounters() + " outbound counters");
+        return true;
+    }
+
+    private PathPlanner createPlanner(String plannerName, GridMap gridMap, DistanceFieldCache distanceFields,
+            ReservationTable reservations, int robotId, int robotSpeed) {
+        if (reservations == null) {
+            return new LandmarkPlanner(distanceFields, PathPlanners.create(plannerName, gridMap));
+        }
+        PathPlanner fallback = new LandmarkPlanner(distanceFields, new AStarPlanner(gridMap));
+        int stepTicks = (int) Math.ceil((double) Robot.stepMillis(robotSpeed) / reservations.getTickMillis());
+        return new CooperativePlanner(reservations, distanceFields, fallback, robotId, stepTicks);
+    }
+
+    /**
+     * 当前生效的配置快照
+     */
+    public WarehouseConfig getConfig() {
+        return config;
     }
 
     public int getGridWidth() {
-        return gridWidth;
+        return config.getGridWidth();
     }
 
     public int getGridHeight() {
-        return gridHeight;
+        return config.getGridHeight();
     }
 
     public int getNumberOfInboundCounters() {
-        return numberOfInboundCounters;
+        return config.getNumberOfInboundCounters();
     }
 
     public int getNumberOfOutboundCounters() {
-        return numberOfOutboundCounters;
+        return config.getNumberOfOutboundCounters();
     }
 
     public int getNumberOfChargingStations() {
-        return numberOfChargingStations;
+        return config.getNumberOfChargingStations();
     }
 
     public int getNumberOfRobots() {
-        return numberOfRobots;
+        return config.getNumberOfRobots();
     }
 
-    public static int readInboundCounters(String configFilePath) {
-        try (BufferedReader br = new BufferedReader(new FileReader(configFilePath))) {
-            List<String[]> lines = new ArrayList<>();
-            String line;
-            while ((line = br.readLine()) != null) {
-                lines.add(line.split(","));
-            }
-            return Integer.parseInt(lines.get(2)[0]);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read config file: " + configFilePath, e);
-        }
+    /**
+     * 任务分派策略名称，配置项 dispatch：travel（默认）或 leastbusy
+     */
+    public String getDispatchPolicyName() {
+        return getOption("dispatch", DispatchPolicies.TRAVEL);
     }
 
-    public static int readOutboundCounters(String configFilePath) {
-        try (BufferedReader br = new BufferedReader(new FileReader(configFilePath))) {
-            List<String[]> lines = new ArrayList<>();
-            String line;
-            while ((line = br.readLine()) != null) {
-                lines.add(line.split(","));
-            }
-            return Integer.parseInt(lines.get(3)[0]);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read config file: " + configFilePath, e);
-        }
+    /**
+     * 批量分派窗口（毫秒），配置项 dispatch.batch.window；hungarian 策略默认1000，其他策略默认0（逐个分派）
+     */
+    public long getBatchWindowMillis() {
+        String defaultWindow = DispatchPolicies.HUNGARIAN.equalsIgnoreCase(getDispatchPolicyName()) ? "1000" : "0";
+        return Long.parseLong(getOption("dispatch.batch.window", defaultWindow));
+    }
+
+    /**
+     * 一批最多的任务数，配置项 dispatch.batch.size，默认500
+     */
+    public int getBatchSize() {
+        return Integer.parseInt(getOption("dispatch.batch.size", "500"));
+    }
+
+    /**
+     * 入库货位策略名称，配置项 slotting：velocity（默认）或 sequential
+     */
+    public String getSlottingStrategyName() {
+        return getOption("slotting", SlottingStrategies.VELOCITY);
+    }
+
+    /**
+     * 出库波次窗口（毫秒），配置项 wave.window，默认0（订单逐个提交）
+     */
+    public long getWaveWindowMillis() {
+        return Long.parseLong(getOption("wave.window", "0"));
+    }
+
+    /**
+     * 一个波次最多的订单数，配置项 wave.orders，默认20
+     */
+    public int getWaveOrders() {
+        return Integer.parseInt(getOption("wave.orders", "20"));
+    }
+
+    /**
+     * 每个合并拣货任务最多的件数，配置项 wave.items，默认0（取机器人的最大容量）
+     */
+    public int getWaveItems() {
+        return Integer.parseInt(getOption("wave.items", "0"));
+    }
+
+    /**
+     * 在库货物的持久化方式，配置项 persistence：mysql（默认）或 journal（本地日志，不需要数据库服务器）
+     */
+    public String getPersistence() {
+        return getOption("persistence", "mysql");
+    }
+
+    /**
+     * 本地日志目录，配置项 journal.dir，默认 data
+     */
+    public String getJournalDirectory() {
+        return getOption("journal.dir", "data");
+    }
+
+    /**
+     * 本地日志追加多少条记录后写一次快照，配置项 journal.snapshot.interval，默认100000
+     */
+    public int getJournalSnapshotInterval() {
+        return Integer.parseInt(getOption("journal.snapshot.interval", "100000"));
+    }
+
+    /**
+     * 数据库连接池大小，配置项 db.pool.size，默认4
+     */
+    public int getDbPoolSize() {
+        return Integer.parseInt(getOption("db.pool.size", "4"));
+    }
+
+    /**
+     * 启动时是否保留并加载数据库中已有的在库货物，配置项 db.warm.start，默认false（清空货物表）
+     */
+    public boolean isDbWarmStart() {
+        return Boolean.parseBoolean(getOption("db.warm.start", "false"));
+    }
+
+    /**
+     * 货物写库队列容量，配置项 db.queue，默认65536
+     */
+    public int getDbQueueCapacity() {
+        return Integer.parseInt(getOption("db.queue", "65536"));
+    }
+
+    /**
+     * 写库间隔（毫秒），配置项 db.flush.millis，默认200
+     */
+    public long getDbFlushMillis() {
+        return Long.parseLong(getOption("db.flush.millis", "200"));
+    }
+
+    /**
+     * 每批写库的最大操作数，配置项 db.batch.size，默认500
+     */
+    public int getDbBatchSize() {
+        return Integer.parseInt(getOption("db.batch.size", "500"));
+    }
+
+    /**
+     * 界面日志面板最多保留的行数，配置项 log.retention，默认1000
+     */
+    public int getLogRetention() {
+        return Integer.parseInt(getOption("log.retention", "1000"));
+    }
+
+    /**
+     * 是否记录逐步移动、逐个请求的明细日志，配置项 log.detail，默认true，界面上可以随时切换
+     */
+    public boolean isLogDetail() {
+        return Boolean.parseBoolean(getOption("log.detail", "true"));
+    }
+
+    /**
+     * 任务线程和供需单元的运行方式，配置项 execution：platform（默认）或 virtual
+     */
+    public ExecutionMode getExecutionMode() {
+        return ExecutionMode.fromName(getOption("execution", "platform"));
+    }
+
+    /**
+     * 读取可选配置项
+     *
+     * @param key          配置键
+     * @param defaultValue 未配置时的默认值
+     * @return 配置值
+     */
+    public String getOption(String key, String defaultValue) {
+        return config.getOption(key, defaultValue);
     }
 }
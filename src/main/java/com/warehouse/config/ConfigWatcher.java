@@ -0,0 +1,79 @@
+package com.warehouse.config;
+
+import com.warehouse.view.WarehouseGrid;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * 配置文件监视器
+ * 用 WatchService 监视配置文件所在目录，文件被修改或替换后重新加载配置。
+ * 编辑器保存时往往连续触发多次事件，等待片刻合并后只加载一次。
+ */
+public class ConfigWatcher implements Runnable, Closeable {
+    private static final long SETTLE_MILLIS = 200;
+
+    private final ConfigLoader configLoader;
+    private final File configFile;
+    private final WarehouseGrid grid;
+    private final WatchService watchService;
+
+    public ConfigWatcher(ConfigLoader configLoader, File configFile, WarehouseGrid grid) throws IOException {
+        this.configLoader = configLoader;
+        this.configFile = configFile.getAbsoluteFile();
+        this.grid = grid;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.configFile.getParentFile().toPath().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    /**
+     * 在后台守护线程中开始监视
+     */
+    public void start() {
+        Thread thread = new Thread(this, "ConfigWatcher-Thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        Path fileName = configFile.toPath().getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= fileName.equals(event.context());
+                    }
+                    key.reset();
+                    if (changed) {
+                        Thread.sleep(SETTLE_MILLIS);
+                    }
+                } while (changed && (key = watchService.poll()) != null);
+
+                if (changed) {
+                    configLoader.reload(configFile, grid);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // 已关闭
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
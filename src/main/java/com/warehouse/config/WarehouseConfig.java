@@ -0,0 +1,140 @@
+package com.warehouse.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 仓库配置快照
+ * CSV只解析一次，之后所有组件共享同一个不可变对象；热更新时整体替换为新快照。
+ * 前7行为固定格式，之后的每一行是可选的 "键,值" 选项
+ */
+public final class WarehouseConfig {
+    private static final int FIXED_LINES = 7;
+
+    private final int gridWidth;
+    private final int gridHeight;
+    private final int numberOfShelves;
+    private final int numberOfInboundCounters;
+    private final int numberOfOutboundCounters;
+    private final int numberOfChargingStations;
+    private final int[] robotCapacities;
+    private final int[] robotSpeeds;
+    private final Map<String, String> options;
+
+    private WarehouseConfig(List<String[]> lines) {
+        if (lines.size() < FIXED_LINES) {
+            throw new IllegalArgumentException("Config needs at least " + FIXED_LINES + " lines, got " + lines.size());
+        }
+        gridWidth = parseInt(lines.get(0)[0]);
+        gridHeight = parseInt(lines.get(0)[1]);
+        numberOfShelves = parseInt(lines.get(1)[0]);
+        numberOfInboundCounters = parseInt(lines.get(2)[0]);
+        numberOfOutboundCounters = parseInt(lines.get(3)[0]);
+        numberOfChargingStations = parseInt(lines.get(4)[0]);
+
+        int numberOfRobots = parseInt(lines.get(5)[0]);
+        robotCapacities = new int[numberOfRobots];
+        robotSpeeds = new int[numberOfRobots];
+        for (int i = 0; i < numberOfRobots; i++) {
+            robotCapacities[i] = parseInt(lines.get(5)[i + 1]);
+            robotSpeeds[i] = parseInt(lines.get(6)[i]);
+        }
+
+        Map<String, String> parsed = new HashMap<>();
+        for (int i = FIXED_LINES; i < lines.size(); i++) {
+            String[] option = lines.get(i);
+            if (option.length >= 2 && !option[0].isBlank()) {
+                parsed.put(option[0].trim(), option[1].trim());
+            }
+        }
+        options = Collections.unmodifiableMap(parsed);
+    }
+
+    private static int parseInt(String value) {
+        return Integer.parseInt(value.trim());
+    }
+
+    /**
+     * 读取并解析配置文件
+     *
+     * @throws IllegalArgumentException 文件内容不完整或数字格式错误
+     */
+    public static WarehouseConfig load(Path path) throws IOException {
+        List<String[]> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            lines.add(line.split(","));
+        }
+        try {
+            return new WarehouseConfig(lines);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Incomplete config file: " + path, e);
+        }
+    }
+
+    public int getGridWidth() {
+        return gridWidth;
+    }
+
+    public int getGridHeight() {
+        return gridHeight;
+    }
+
+    public int getNumberOfShelves() {
+        return numberOfShelves;
+    }
+
+    public int getNumberOfInboundCounters() {
+        return numberOfInboundCounters;
+    }
+
+    public int getNumberOfOutboundCounters() {
+        return numberOfOutboundCounters;
+    }
+
+    public int getNumberOfChargingStations() {
+        return numberOfChargingStations;
+    }
+
+    public int getNumberOfRobots() {
+        return robotSpeeds.length;
+    }
+
+    public int getRobotCapacity(int index) {
+        return robotCapacities[index];
+    }
+
+    public int getRobotSpeed(int index) {
+        return robotSpeeds[index];
+    }
+
+    /**
+     * 读取可选配置项
+     *
+     * @param key          配置键
+     * @param defaultValue 未配置时的默认值
+     * @return 配置值
+     */
+    public String getOption(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * 布局相关的配置（尺寸、货架、充电桩、机器人数量和容量、选项）是否相同，
+     * 这些配置变化只能重启后生效
+     */
+    public boolean hasSameLayout(WarehouseConfig other) {
+        return gridWidth == other.gridWidth && gridHeight == other.gridHeight
+                && numberOfShelves == other.numberOfShelves
+                && numberOfChargingStations == other.numberOfChargingStations
+                && Arrays.equals(robotCapacities, other.robotCapacities)
+                && options.equals(other.options);
+    }
+}
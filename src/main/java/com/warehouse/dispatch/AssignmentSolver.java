@@ -0,0 +1,86 @@
+package com.warehouse.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * 最小代价指派（匈牙利算法，带势函数的最短增广路实现）
+ * 代价矩阵按行存放在一维long数组中，行数不能多于列数，时间复杂度 O(rows² · cols)。
+ */
+public final class AssignmentSolver {
+    private static final long INF = Long.MAX_VALUE / 4;
+
+    private AssignmentSolver() {
+    }
+
+    /**
+     * 为每一行指派互不相同的一列，使总代价最小
+     *
+     * @param cost 行优先的代价矩阵，cost[row * cols + col]
+     * @param rows 行数
+     * @param cols 列数，不小于行数
+     * @return 每一行指派到的列
+     */
+    public static int[] solve(long[] cost, int rows, int cols) {
+        if (rows > cols) {
+            throw new IllegalArgumentException("More rows than columns: " + rows + " > " + cols);
+        }
+        // 下标从1开始，第0列是增广路的虚拟起点
+        long[] rowPotential = new long[rows + 1];
+        long[] colPotential = new long[cols + 1];
+        int[] colMatch = new int[cols + 1];
+        int[] previous = new int[cols + 1];
+        long[] minSlack = new long[cols + 1];
+        boolean[] used = new boolean[cols + 1];
+
+        for (int row = 1; row <= rows; row++) {
+            colMatch[0] = row;
+            int col0 = 0;
+            Arrays.fill(minSlack, INF);
+            Arrays.fill(used, false);
+            do {
+                used[col0] = true;
+                int row0 = colMatch[col0];
+                int base = (row0 - 1) * cols - 1;
+                long delta = INF;
+                int col1 = 0;
+                for (int col = 1; col <= cols; col++) {
+                    if (used[col]) {
+                        continue;
+                    }
+                    long slack = cost[base + col] - rowPotential[row0] - colPotential[col];
+                    if (slack < minSlack[col]) {
+                        minSlack[col] = slack;
+                        previous[col] = col0;
+                    }
+                    if (minSlack[col] < delta) {
+                        delta = minSlack[col];
+                        col1 = col;
+                    }
+                }
+                for (int col = 0; col <= cols; col++) {
+                    if (used[col]) {
+                        rowPotential[colMatch[col]] += delta;
+                        colPotential[col] -= delta;
+                    } else {
+                        minSlack[col] -= delta;
+                    }
+                }
+                col0 = col1;
+            } while (colMatch[col0] != 0);
+            // 沿增广路回溯，翻转匹配
+            do {
+                int col1 = previous[col0];
+                colMatch[col0] = colMatch[col1];
+                col0 = col1;
+            } while (col0 != 0);
+        }
+
+        int[] assignment = new int[rows];
+        for (int col = 1; col <= cols; col++) {
+            if (colMatch[col] != 0) {
+                assignment[colMatch[col] - 1] = col - 1;
+            }
+        }
+        return assignment;
+    }
+}
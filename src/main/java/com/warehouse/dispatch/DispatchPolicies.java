@@ -0,0 +1,31 @@
+package com.warehouse.dispatch;
+
+import com.warehouse.simulation.SimulationClock;
+import com.warehouse.view.WarehouseGrid;
+
+/**
+ * 分派策略工厂
+ * 根据配置名称创建策略：travel（默认，按预计完成时间）、leastbusy（排队任务最少）、
+ * hungarian（按批最小总代价指派，配合批量分派窗口使用）
+ */
+public final class DispatchPolicies {
+    public static final String TRAVEL = "travel";
+    public static final String LEAST_BUSY = "leastbusy";
+    public static final String HUNGARIAN = "hungarian";
+
+    private DispatchPolicies() {
+    }
+
+    public static DispatchPolicy create(String name, WarehouseGrid grid, SimulationClock clock) {
+        switch (name.toLowerCase()) {
+            case TRAVEL:
+                return new TravelCostPolicy(grid, clock);
+            case HUNGARIAN:
+                return new HungarianPolicy(grid, clock);
+            case LEAST_BUSY:
+                return new LeastBusyPolicy();
+            default:
+                throw new IllegalArgumentException("Unsupported dispatch policy: " + name);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.warehouse.dispatch;
+
+import com.warehouse.entity.Robot;
+import com.warehouse.model.Task;
+import com.warehouse.service.TaskQueue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任务分派策略
+ * 由Supervisor在分派锁内调用，选出执行任务的机器人
+ */
+public interface DispatchPolicy {
+
+    /**
+     * 选择执行任务的机器人
+     *
+     * @param task       待分派的任务
+     * @param robots     所有机器人
+     * @param taskQueues 各机器人已排队的任务
+     * @return 选中的机器人，没有可用机器人时返回null
+     */
+    Robot select(Task task, List<Robot> robots, Map<Robot, TaskQueue> taskQueues);
+
+    /**
+     * 一次分派一批任务，选中的机器人会调用 {@link #onAssigned} 并把任务放入其任务队列。
+     * 默认逐个按 {@link #select} 分派。
+     *
+     * @return 与 tasks 一一对应的机器人，没有可用机器人的任务为null
+     */
+    default Robot[] assignBatch(List<Task> tasks, List<Robot> robots, Map<Robot, TaskQueue> taskQueues) {
+        Robot[] assigned = new Robot[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            Robot robot = select(task, robots, taskQueues);
+            if (robot != null) {
+                onAssigned(robot, task);
+                taskQueues.get(robot).enqueueTask(task);
+                assigned[i] = robot;
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * 任务已放入机器人的任务队列
+     */
+    default void onAssigned(Robot robot, Task task) {
+    }
+
+    /**
+     * 机器人完成了一个任务
+     */
+    default void onCompleted(Robot robot, Task task) {
+    }
+}
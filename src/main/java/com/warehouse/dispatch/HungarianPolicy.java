@@ -0,0 +1,110 @@
+package com.warehouse.dispatch;
+
+import com.warehouse.entity.Robot;
+import com.warehouse.model.Task;
+import com.warehouse.service.TaskQueue;
+import com.warehouse.simulation.SimulationClock;
+import com.warehouse.view.WarehouseGrid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 批量最优分派
+ * 代价与 {@link TravelCostPolicy} 相同（预计完成时间），一批任务按轮次求最小总代价指派：
+ * 每一轮每个机器人最多分到一个任务，分配后更新推算状态，剩余任务进入下一轮。
+ * 代价矩阵较大时按行并行计算。单个任务仍按最早完成时间选择。
+ */
+public class HungarianPolicy extends TravelCostPolicy {
+    // 矩阵元素达到该数量才并行计算代价
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    public HungarianPolicy(WarehouseGrid grid, SimulationClock clock) {
+        super(grid, clock);
+    }
+
+    @Override
+    public synchronized Robot[] assignBatch(List<Task> tasks, List<Robot> robots,
+                                            Map<Robot, TaskQueue> taskQueues) {
+        Robot[] assigned = new Robot[tasks.size()];
+        List<Robot> available = new ArrayList<>();
+        for (Robot robot : robots) {
+            if (robot.isRunning() && taskQueues.containsKey(robot)) {
+                available.add(robot);
+            }
+        }
+        if (available.isEmpty()) {
+            return assigned;
+        }
+
+        int[] remaining = IntStream.range(0, tasks.size()).toArray();
+        while (remaining.length > 0) {
+            long now = clock.currentTimeMillis();
+            int robotCount = available.size();
+            int taskCount = remaining.length;
+            long[] cost = costMatrix(available, tasks, remaining, now);
+
+            int[] robotOf;
+            if (robotCount <= taskCount) {
+                int[] taskOf = AssignmentSolver.solve(cost, robotCount, taskCount);
+                robotOf = new int[taskCount];
+                Arrays.fill(robotOf, -1);
+                for (int r = 0; r < robotCount; r++) {
+                    robotOf[taskOf[r]] = r;
+                }
+            } else {
+                robotOf = AssignmentSolver.solve(transpose(cost, robotCount, taskCount), taskCount, robotCount);
+            }
+
+            int[] next = new int[taskCount];
+            int nextCount = 0;
+            for (int t = 0; t < taskCount; t++) {
+                int index = remaining[t];
+                if (robotOf[t] < 0) {
+                    next[nextCount++] = index;
+                    continue;
+                }
+                Robot robot = available.get(robotOf[t]);
+                Task task = tasks.get(index);
+                onAssigned(robot, task);
+                taskQueues.get(robot).enqueueTask(task);
+                assigned[index] = robot;
+            }
+            remaining = Arrays.copyOf(next, nextCount);
+        }
+        return assigned;
+    }
+
+    /**
+     * 机器人 × 任务的代价矩阵（行优先），调用方持有策略锁，计算期间推算状态不会变化
+     */
+    private long[] costMatrix(List<Robot> robots, List<Task> tasks, int[] taskIndexes, long now) {
+        int cols = taskIndexes.length;
+        long[] cost = new long[robots.size() * cols];
+        IntStream rows = IntStream.range(0, robots.size());
+        if (cost.length >= PARALLEL_THRESHOLD) {
+            rows = rows.parallel();
+        }
+        rows.forEach(r -> {
+            Robot robot = robots.get(r);
+            int base = r * cols;
+            for (int c = 0; c < cols; c++) {
+                cost[base + c] = project(robot, tasks.get(taskIndexes[c]), now).freeAt - now;
+            }
+        });
+        return cost;
+    }
+
+    private static long[] transpose(long[] cost, int rows, int cols) {
+        long[] transposed = new long[cost.length];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                transposed[c * rows + r] = cost[r * cols + c];
+            }
+        }
+        return transposed;
+    }
+}
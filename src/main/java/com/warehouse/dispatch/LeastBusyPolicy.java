@@ -0,0 +1,31 @@
+package com.warehouse.dispatch;
+
+import com.warehouse.entity.Robot;
+import com.warehouse.model.Task;
+import com.warehouse.service.TaskQueue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 负载均衡分派：选择排队任务最少的运行中机器人
+ */
+public class LeastBusyPolicy implements DispatchPolicy {
+
+    @Override
+    public Robot select(Task task, List<Robot> robots, Map<Robot, TaskQueue> taskQueues) {
+        Robot leastBusyRobot = null;
+        int minTaskCount = Integer.MAX_VALUE;
+        for (Robot robot : robots) {
+            TaskQueue taskQueue = taskQueues.get(robot);
+            if (robot.isRunning() && taskQueue != null) {
+                int taskCount = taskQueue.size();
+                if (taskCount < minTaskCount) {
+                    minTaskCount = taskCount;
+                    leastBusyRobot = robot;
+                }
+            }
+        }
+        return leastBusyRobot;
+    }
+}
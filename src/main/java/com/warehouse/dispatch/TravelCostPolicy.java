@@ -0,0 +1,125 @@
+package com.warehouse.dispatch;
+
+import com.warehouse.entity.Robot;
+import com.warehouse.model.Task;
+import com.warehouse.pathfinding.DistanceFieldCache;
+import com.warehouse.service.TaskQueue;
+import com.warehouse.simulation.SimulationClock;
+import com.warehouse.view.WarehouseGrid;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按预计完成时间分派
+ * 为每个机器人推算已排队任务完成后的位置、时刻和电量，再按 {@link TripPlanner} 拆出的各趟运输
+ * 加上行驶时间、取放货时间以及电量不足时去充电的绕行，选择能最早完成该任务的机器人。
+ * 行驶距离来自地标距离场，柜台、充电桩和货架取放货位之间的查询是常数时间。
+ */
+public class TravelCostPolicy implements DispatchPolicy {
+    private final WarehouseGrid grid;
+    private final TripPlanner tripPlanner;
+    final SimulationClock clock;
+    // 有未完成任务的机器人的推算状态，任务全部完成后移除，改用机器人的实际状态
+    private final Map<Robot, Projection> projections = new HashMap<>();
+
+    public TravelCostPolicy(WarehouseGrid grid, SimulationClock clock) {
+        this.grid = grid;
+        this.tripPlanner = new TripPlanner(grid);
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized Robot select(Task task, List<Robot> robots, Map<Robot, TaskQueue> taskQueues) {
+        long now = clock.currentTimeMillis();
+        Robot best = null;
+        long bestFinish = Long.MAX_VALUE;
+        for (Robot robot : robots) {
+            if (!robot.isRunning() || !taskQueues.containsKey(robot)) {
+                continue;
+            }
+            long finish = project(robot, task, now).freeAt;
+            if (finish < bestFinish) {
+                bestFinish = finish;
+                best = robot;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 预计机器人完成已排队任务之后再完成该任务所需的时间（毫秒）
+     */
+    public synchronized long estimateMillis(Robot robot, Task task) {
+        long now = clock.currentTimeMillis();
+        return project(robot, task, now).freeAt - now;
+    }
+
+    @Override
+    public synchronized void onAssigned(Robot robot, Task task) {
+        projections.put(robot, project(robot, task, clock.currentTimeMillis()));
+    }
+
+    @Override
+    public synchronized void onCompleted(Robot robot, Task task) {
+        Projection projection = projections.get(robot);
+        if (projection != null && --projection.pending <= 0) {
+            projections.remove(robot);
+        }
+    }
+
+    Projection project(Robot robot, Task task, long now) {
+        Projection queued = projections.get(robot);
+        Projection p = queued == null
+                ? new Projection(robot.getX(), robot.getY(), now, robot.getBattery(), 0)
+                : new Projection(queued.x, queued.y, Math.max(now, queued.freeAt), queued.battery, queued.pending);
+        int stepMillis = robot.getStepMillis();
+        Point chargingStation = robot.getChargingStation();
+
+        for (Trip trip : tripPlanner.plan(task, p.x, p.y, robot.getCapacity(), robot.getMaxWeight())) {
+            for (Point pickUp : trip.getPickUps()) {
+                travel(p, pickUp, stepMillis);
+                p.freeAt += Robot.PICK_UP_MILLIS;
+            }
+            for (Point dropOff : trip.getDropOffs()) {
+                travel(p, dropOff, stepMillis);
+                p.freeAt += Robot.DROP_OFF_MILLIS;
+            }
+            // 每趟卸完后电量过低会先去充电
+            if (p.battery <= Robot.LOW_BATTERY && chargingStation != null) {
+                travel(p, chargingStation, stepMillis);
+                p.freeAt += Robot.CHARGE_MILLIS;
+                p.battery = 100;
+            }
+        }
+        p.pending++;
+        return p;
+    }
+
+    private void travel(Projection p, Point to, int stepMillis) {
+        DistanceFieldCache distances = grid.getDistanceFields();
+        int cells = distances.estimate(p.x, p.y, to.x, to.y);
+        p.freeAt += (long) cells * stepMillis;
+        p.battery = Math.max(0, p.battery - cells);
+        p.x = to.x;
+        p.y = to.y;
+    }
+
+    static final class Projection {
+        int x;
+        int y;
+        long freeAt;
+        int battery;
+        int pending;
+
+        Projection(int x, int y, long freeAt, int battery, int pending) {
+            this.x = x;
+            this.y = y;
+            this.freeAt = freeAt;
+            this.battery = battery;
+            this.pending = pending;
+        }
+    }
+}
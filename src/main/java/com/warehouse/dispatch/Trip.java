@@ -0,0 +1,34 @@
+package com.warehouse.dispatch;
+
+import com.warehouse.model.Product;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * 一趟运输：按顺序在各取货点装货，再按顺序在各放货点卸货
+ * products 与卸货顺序一一对应
+ */
+public final class Trip {
+    private final List<Product> products;
+    private final List<Point> pickUps;
+    private final List<Point> dropOffs;
+
+    public Trip(List<Product> products, List<Point> pickUps, List<Point> dropOffs) {
+        this.products = products;
+        this.pickUps = pickUps;
+        this.dropOffs = dropOffs;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public List<Point> getPickUps() {
+        return pickUps;
+    }
+
+    public List<Point> getDropOffs() {
+        return dropOffs;
+    }
+}
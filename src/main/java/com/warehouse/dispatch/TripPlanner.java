@@ -0,0 +1,170 @@
+package com.warehouse.dispatch;
+
+import com.warehouse.model.Product;
+import com.warehouse.model.Task;
+import com.warehouse.pathfinding.DistanceFieldCache;
+import com.warehouse.view.WarehouseGrid;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 多件运输规划
+ * 把任务的货物按机器人容量（和可选的载重上限）拆成若干趟，每趟装满后一次卸完。
+ * 货架一侧的停靠点先用最近邻排出顺序并按顺序分趟，每趟再用2-opt改进访问顺序。
+ * 入库时在入库柜台装货、依次送到各货位；出库时依次到各货位取货、在出库柜台卸货。
+ */
+public class TripPlanner {
+    // 2-opt 最多改进的轮数，每趟的停靠点不超过机器人容量，通常几轮内收敛
+    private static final int MAX_IMPROVEMENT_ROUNDS = 32;
+
+    private final WarehouseGrid grid;
+
+    public TripPlanner(WarehouseGrid grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * @param startX    机器人出发位置
+     * @param startY    机器人出发位置
+     * @param capacity  每趟最多装载的件数
+     * @param maxWeight 每趟最大载重，不大于0表示不限制
+     * @return 按执行顺序排列的各趟运输，柜台编号无效的任务返回空列表
+     */
+    public List<Trip> plan(Task task, int startX, int startY, int capacity, double maxWeight) {
+        boolean inbound = "INBOUND".equals(task.getType());
+        Point counter = counter(task, inbound);
+        List<Product> products = task.getProducts();
+        if (counter == null || products.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int count = products.size();
+        Point[] stops = new Point[count];
+        for (int i = 0; i < count; i++) {
+            stops[i] = accessPoint(products.get(i));
+        }
+        // 入库从柜台出发；出库从机器人当前位置出发
+        Point origin = inbound ? counter : new Point(startX, startY);
+        int[] order = nearestNeighbour(stops, origin);
+
+        List<Trip> trips = new ArrayList<>();
+        int limit = Math.max(1, capacity);
+        int from = 0;
+        while (from < count) {
+            int to = from;
+            double weight = 0;
+            while (to < count && to - from < limit) {
+                double next = weight + products.get(order[to]).getWeight();
+                // 单件超重时仍然单独运一趟
+                if (maxWeight > 0 && to > from && next > maxWeight) {
+                    break;
+                }
+                weight = next;
+                to++;
+            }
+            int[] leg = new int[to - from];
+            System.arraycopy(order, from, leg, 0, leg.length);
+            // 出库每趟结束在柜台，下一趟从柜台出发
+            Point legStart = inbound || from == 0 ? origin : counter;
+            twoOpt(leg, stops, legStart, inbound ? null : counter);
+            trips.add(toTrip(leg, products, stops, counter, inbound));
+            from = to;
+        }
+        return trips;
+    }
+
+    /**
+     * 任务对应的柜台；柜台数量热更新减少后，旧任务的编号按取模落到现有柜台上
+     */
+    private Point counter(Task task, boolean inbound) {
+        List<Point> counters = inbound ? grid.getInboundCounters() : grid.getOutboundCounters();
+        int index = inbound ? task.getSourceCounterId() - 1 : task.getDestinationCounterId();
+        if (index < 0 || counters.isEmpty()) {
+            return null;
+        }
+        return counters.get(index % counters.size());
+    }
+
+    /**
+     * 机器人存取该货位时停靠的格子
+     */
+    private Point accessPoint(Product product) {
+        Point shelf = grid.calculateLocation(product.getLocationX(), product.getLocationY());
+        return new Point(shelf.x, product.getLocationY());
+    }
+
+    private static Trip toTrip(int[] leg, List<Product> products, Point[] stops, Point counter, boolean inbound) {
+        List<Product> tripProducts = new ArrayList<>(leg.length);
+        List<Point> shelves = new ArrayList<>(leg.length);
+        List<Point> counters = new ArrayList<>(leg.length);
+        for (int index : leg) {
+            tripProducts.add(products.get(index));
+            shelves.add(stops[index]);
+            counters.add(counter);
+        }
+        return inbound ? new Trip(tripProducts, counters, shelves) : new Trip(tripProducts, shelves, counters);
+    }
+
+    private int[] nearestNeighbour(Point[] stops, Point origin) {
+        int count = stops.length;
+        int[] order = new int[count];
+        boolean[] visited = new boolean[count];
+        Point current = origin;
+        for (int i = 0; i < count; i++) {
+            int best = -1;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int j = 0; j < count; j++) {
+                if (!visited[j]) {
+                    int d = distance(current, stops[j]);
+                    if (d < bestDistance) {
+                        bestDistance = d;
+                        best = j;
+                    }
+                }
+            }
+            visited[best] = true;
+            order[i] = best;
+            current = stops[best];
+        }
+        return order;
+    }
+
+    /**
+     * 对从 start 出发、依次经过 leg 中停靠点（end 不为null时最后到达 end）的路线做2-opt改进
+     */
+    private void twoOpt(int[] leg, Point[] stops, Point start, Point end) {
+        int n = leg.length;
+        boolean improved = true;
+        for (int round = 0; improved && round < MAX_IMPROVEMENT_ROUNDS; round++) {
+            improved = false;
+            for (int i = 0; i < n - 1; i++) {
+                Point before = i == 0 ? start : stops[leg[i - 1]];
+                for (int j = i + 1; j < n; j++) {
+                    Point after = j == n - 1 ? end : stops[leg[j + 1]];
+                    int current = distance(before, stops[leg[i]]) + distance(stops[leg[j]], after);
+                    int reversed = distance(before, stops[leg[j]]) + distance(stops[leg[i]], after);
+                    if (reversed < current) {
+                        for (int a = i, b = j; a < b; a++, b--) {
+                            int tmp = leg[a];
+                            leg[a] = leg[b];
+                            leg[b] = tmp;
+                        }
+                        improved = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // 路线终点开放时到终点的距离计为0
+    private int distance(Point from, Point to) {
+        if (to == null) {
+            return 0;
+        }
+        DistanceFieldCache distances = grid.getDistanceFields();
+        return distances.estimate(from.x, from.y, to.x, to.y);
+    }
+}
@@ -0,0 +1,23 @@
+package com.warehouse.entity;
+
+/**
+ * 机器人找不到到达目标的路径，本段移动失败
+ */
+public class PathNotFoundException extends Exception {
+    private final int targetX;
+    private final int targetY;
+
+    public PathNotFoundException(int robotId, int targetX, int targetY) {
+        super("Robot " + robotId + " could not find a path to (" + targetX + ", " + targetY + ")");
+        this.targetX = targetX;
+        this.targetY = targetY;
+    }
+
+    public int getTargetX() {
+        return targetX;
+    }
+
+    public int getTargetY() {
+        return targetY;
+    }
+}
@@ -1,33 +1,77 @@
 package com.warehouse.entity;
 
+import com.warehouse.pathfinding.GridMap;
+import com.warehouse.pathfinding.PathPlanner;
+import com.warehouse.simulation.MovementScheduler;
+import com.warehouse.simulation.SimulationClock;
+import com.warehouse.simulation.SystemClock;
 import com.warehouse.view.LogListener;
 
-import javax.swing.*;
 import java.awt.*;
-import java.util.*;
+import java.util.Collections;
 import java.util.List;
-
-public class Robot implements Runnable {
-    private final int rows;
-    private final int columns;
-    private final List<Point> shelves;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class Robot {
+    /** 每一步在速度决定的时间之外额外停留的时间（毫秒） */
+    public static final int STEP_OVERHEAD_MILLIS = 100;
+    /** 取货、放货、充电各自耗时（毫秒） */
+    public static final int PICK_UP_MILLIS = 1000;
+    public static final int DROP_OFF_MILLIS = 1000;
+    public static final int CHARGE_MILLIS = 3000;
+    /** 完成任务后电量不高于此值时去充电 */
+    public static final int LOW_BATTERY = 10;
+
+    // imageNames 中各状态图标的下标
+    private static final int GREEN = 0;
+    private static final int GREEN_CARRYING = 1;
+    private static final int ORANGE = 2;
+    private static final int ORANGE_CARRYING = 3;
+    private static final int RED = 4;
+    // 连续这么多步无法进入下一格后重新规划
+    private static final int MAX_BLOCKED_STEPS = 3;
+    // takePathCell 的返回值：下一格被其他机器人占用
+    private static final int BLOCKED = -2;
+
+    private final GridMap gridMap;
+    private final PathPlanner pathPlanner;
     private final List<Point> chargingStations;
     private final int id;
     private final Character name;
-    private int x;
-    private int y;
+    private volatile int x;
+    private volatile int y;
     private final int capacity;
-    private boolean isCarrying;
+    // 每趟最大载重，不大于0表示不限制
+    private double maxWeight;
+    // 当前装载的件数
+    private int load;
     private String status;
-    private Thread robotThread;
-    private int targetX;
-    private int targetY;
+    private MovementScheduler scheduler;
+    private int schedulerSlot;
+    private SimulationClock clock = SystemClock.INSTANCE;
+    // 累计行驶的格子数，只由移动调度器线程写入
+    private volatile long distanceTravelled;
+    private volatile int targetX;
+    private volatile int targetY;
     private volatile boolean running;
-    private Image image;
+    // 当前图标名称，由界面从图标缓存中取图；各状态的名称预先拼好，移动时不再拼接字符串
+    private volatile String imageName;
+    private final List<String> imageNames;
     private int battery;
     private String carriedItem = "";
-    private final int speed;
-    private List<Point> path = new ArrayList<>();
+    private volatile int speed;
+    private final Object pathLock = new Object();
+    private int[] path = new int[16];
+    private int pathLength;
+    private int pathIndex;
+    private int stepsSincePlan;
+    // 连续几步因下一格被占用而原地等待，只在移动线程上访问
+    private int blockedSteps;
+    // 当前这一段移动的到达信号，由移动线程在到达目标格子时完成
+    private volatile CompletableFuture<Void> arrival = CompletableFuture.completedFuture(null);
+    // 机器人可以接收任务时完成的信号，停用时换成新的未完成信号，重新激活时完成
+    private volatile CompletableFuture<Void> available = CompletableFuture.completedFuture(null);
     private volatile boolean tobestopped = false;
 
     private static LogListener logListener;
@@ -42,37 +86,65 @@ public class Robot implements Runnable {
         }
     }
 
-    public Thread getRobotThread() {
-        return robotThread;
+    // 每一步的移动日志只在需要明细时拼接
+    private static boolean detailLogging() {
+        LogListener listener = logListener;
+        return listener != null && listener.isDetailEnabled();
     }
 
     public Robot(int id, int startX, int startY, int capacity, List<Point> chargingStations,
-            int gridWidth, int gridHeight, List<Point> shelves, Character name, int robotSpeed) {
+            PathPlanner pathPlanner, Character name, int robotSpeed) {
         this.id = id;
         this.x = startX;
         this.y = startY;
         this.capacity = capacity;
         this.battery = 100;
-        this.isCarrying = false;
         this.status = "inactive";
         this.chargingStations = chargingStations;
-        this.robotThread = new Thread(this);
         this.running = true;
-        this.image = new ImageIcon("src/main/resources/images/" + name + "-green.png").getImage();
-        this.columns = gridWidth;
-        this.rows = gridHeight;
-        this.shelves = shelves;
+        this.imageNames = imageNames(name);
+        this.imageName = imageNames.get(GREEN);
+        this.gridMap = pathPlanner.getGridMap();
+        this.pathPlanner = pathPlanner;
         this.name = name;
         this.speed = robotSpeed;
         this.targetX = startX;
         this.targetY = startY;
-        robotThread.start();
+        // 初始位置在第一次出发前一直为本机器人保留
+        pathPlanner.park(startX, startY);
+    }
+
+    /**
+     * 由移动调度器登记时调用
+     */
+    public void setScheduler(MovementScheduler scheduler, int slot) {
+        this.scheduler = scheduler;
+        this.schedulerSlot = slot;
+    }
+
+    /**
+     * 设置取放货、充电等延时所用的时钟
+     */
+    public void setClock(SimulationClock clock) {
+        this.clock = clock;
     }
 
     public int getCapacity() {
         return capacity;
     }
 
+    public double getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(double maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public synchronized int getLoad() {
+        return load;
+    }
+
     public int getId() {
         return id;
     }
@@ -85,12 +157,29 @@ public class Robot implements Runnable {
         return y;
     }
 
-    public Image getImage() {
-        return image;
+    /**
+     * 当前图标名称（不含 .png 后缀），随电量和是否载货变化
+     */
+    public String getImageName() {
+        return imageName;
+    }
+
+    /**
+     * 该机器人所有可能用到的图标名称，供界面预先加载
+     */
+    public List<String> getImageNames() {
+        return imageNames;
+    }
+
+    // 图标文件名为小写字母加状态后缀，例如 a-green-black.png
+    private static List<String> imageNames(Character name) {
+        String prefix = String.valueOf(Character.toLowerCase(name));
+        return List.of(prefix + "-green", prefix + "-green-black", prefix + "-orange", prefix + "-orange-black",
+                prefix + "-red");
     }
 
-    public boolean isCarrying() {
-        return isCarrying;
+    public synchronized boolean isCarrying() {
+        return load > 0;
     }
 
     public String getStatus() {
@@ -101,68 +190,191 @@ public class Robot implements Runnable {
         return running;
     }
 
+    /**
+     * 机器人处于可接收任务状态时完成的future
+     */
+    public CompletableFuture<Void> whenAvailable() {
+        return available;
+    }
+
     public int getBattery() {
         return battery;
     }
 
-    public void moveStep() {
-        try {
-            Thread.sleep(1000 / speed);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+    /**
+     * 机器人专属的充电桩，没有对应充电桩时返回null
+     */
+    public Point getChargingStation() {
+        return id - 1 < chargingStations.size() ? chargingStations.get(id - 1) : null;
+    }
+
+    public long getDistanceTravelled() {
+        return distanceTravelled;
+    }
+
+    /**
+     * 沿路径前进一步，由移动调度器按步长调用
+     *
+     * @return 路径上是否还有剩余的步
+     */
+    public boolean moveStep() {
+        int nextStep = takePathCell();
+        if (nextStep == BLOCKED) {
+            // 下一格被其他机器人占用：原地等待，连续等待几步后重新规划
+            if (++blockedSteps >= MAX_BLOCKED_STEPS) {
+                blockedSteps = 0;
+                replan();
+            }
+            return hasPendingSteps();
+        }
+        if (nextStep >= 0) {
+            blockedSteps = 0;
+            int nextX = gridMap.cellX(nextStep);
+            int nextY = gridMap.cellY(nextStep);
+            // 路径中重复的格子表示原地等待，不消耗电量
+            boolean moved = nextX != x || nextY != y;
+            x = nextX;
+            y = nextY;
+
+            if (moved) {
+                distanceTravelled++;
+                if (battery > 0) {
+                    battery -= 1;
+                }
+                updateImage();
+                if (detailLogging()) {
+                    log("Robot " + id + " moved to (" + x + ", " + y + "). Battery: " + battery);
+                }
+            }
+            if (x == targetX && y == targetY && !hasPendingSteps()) {
+                arrival.complete(null);
+                return false;
+            }
+
+            int replanInterval = pathPlanner.getReplanInterval();
+            if (replanInterval > 0 && ++stepsSincePlan >= replanInterval && hasPendingSteps()) {
+                replan();
+            }
+            if (!hasPendingSteps()) {
+                // 路线在目标之前结束（给其他机器人让路）：从这里继续规划
+                replan();
+            }
+        }
+        return hasPendingSteps();
+    }
+
+    private synchronized void replan() {
+        if (calculatePath(x, y, targetX, targetY) == 0 && (x != targetX || y != targetY)) {
+            arrival.completeExceptionally(new PathNotFoundException(id, targetX, targetY));
+        }
+    }
+
+    public int getStepMillis() {
+        return stepMillis(speed);
+    }
+
+    public int getSpeed() {
+        return speed;
+    }
+
+    /**
+     * 修改速度，从下一步开始生效
+     */
+    public void setSpeed(int speed) {
+        if (speed <= 0 || speed == this.speed) {
             return;
         }
+        this.speed = speed;
+        pathPlanner.setStepMillis(stepMillis(speed));
+    }
 
-        if (!path.isEmpty()) {
-            Point nextStep = path.remove(0);
-            x = nextStep.x;
-            y = nextStep.y;
+    /**
+     * 机器人走一步的时间间隔（毫秒）
+     */
+    public static int stepMillis(int speed) {
+        return 1000 / speed + STEP_OVERHEAD_MILLIS;
+    }
 
-            if (battery > 0) {
-                battery -= 1;
+    /**
+     * 取出路径上的下一格；需要换格子时先向规划器申请进入，被拒绝时不前进
+     *
+     * @return 下一格，路径已走完时返回-1，被拒绝时返回 BLOCKED
+     */
+    private int takePathCell() {
+        synchronized (pathLock) {
+            if (pathIndex >= pathLength) {
+                return -1;
             }
-            checkChargeNeeded();
-            updateImage();
-            log("Robot " + id + " moved to (" + x + ", " + y + "). Battery: " + battery);
+            int cell = path[pathIndex];
+            int nextX = gridMap.cellX(cell);
+            int nextY = gridMap.cellY(cell);
+            if ((nextX != x || nextY != y) && !pathPlanner.tryEnter(x, y, nextX, nextY)) {
+                return BLOCKED;
+            }
+            pathIndex++;
+            return cell;
+        }
+    }
+
+    public boolean hasPendingSteps() {
+        synchronized (pathLock) {
+            return pathIndex < pathLength;
         }
     }
 
     private void updateImage() {
-        String suffix;
+        boolean isCarrying = load > 0;
+        int state;
         if (battery >= 50) {
-            suffix = isCarrying ? "-green-black.png" : "-green.png";
+            state = isCarrying ? GREEN_CARRYING : GREEN;
         } else if (battery >= 10) {
-            suffix = isCarrying ? "-orange-black.png" : "-orange.png";
+            state = isCarrying ? ORANGE_CARRYING : ORANGE;
         } else {
-            suffix = "-red.png";
+            state = RED;
         }
-        image = new ImageIcon("src/main/resources/images/" + name + suffix).getImage();
+        imageName = imageNames.get(state);
     }
 
-    private void checkChargeNeeded() {
-        if (battery <= 10 && "inactive".equals(status)) {
+    private void checkChargeNeeded() throws InterruptedException {
+        if (battery <= LOW_BATTERY && "inactive".equals(status)) {
             status = "goto charging";
-            if (id - 1 < chargingStations.size()) {
-                Point chargingStation = chargingStations.get(id - 1);
+            Point chargingStation = getChargingStation();
+            if (chargingStation != null) {
                 moveTo(chargingStation.x, chargingStation.y);
-                waitUntilArrived(chargingStation.x, chargingStation.y);
+                try {
+                    waitUntilArrived();
+                } catch (PathNotFoundException e) {
+                    log(e.getMessage() + ", skipping charge.");
+                    status = "inactive";
+                    return;
+                }
                 charge();
             }
         }
     }
 
-    private void waitUntilArrived(int targetX, int targetY) {
-        while (x != targetX || y != targetY) {
-            Thread.yield();
+    /**
+     * 阻塞等待当前这一段移动到达目标，等待期间不占用CPU
+     *
+     * @throws PathNotFoundException 找不到到达目标的路径
+     */
+    private void waitUntilArrived() throws InterruptedException, PathNotFoundException {
+        try {
+            clock.await(arrival);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PathNotFoundException) {
+                throw (PathNotFoundException) e.getCause();
+            }
+            throw new IllegalStateException("Robot " + id + " movement failed", e.getCause());
         }
     }
 
     public boolean isShelf(int x, int y) {
-        return shelves.contains(new Point(x, y));
+        return gridMap.isObstacle(x, y);
     }
 
     public boolean isNotArea(int x, int y) {
-        return !(x >= 0 && x < columns && y >= 0 && y < rows);
+        return !gridMap.contains(x, y);
     }
 
     public boolean boardOut(int x, int y) {
@@ -171,79 +383,116 @@ public class Robot implements Runnable {
 
     public synchronized void moveTo(int targetX, int targetY) {
         log("Robot " + id + " is moving to (" + targetX + ", " + targetY + ")...");
+        CompletableFuture<Void> leg = new CompletableFuture<>();
+        arrival = leg;
         this.targetX = targetX;
         this.targetY = targetY;
-        path = calculatePath(x, y, targetX, targetY);
+        if (x == targetX && y == targetY) {
+            leg.complete(null);
+        }
+        int length = calculatePath(x, y, targetX, targetY);
 
-        if (path.isEmpty() && (x != targetX || y != targetY)) {
-            log("Robot " + id + " could not find a path to the target!");
-            System.out.println("Robot " + id + " could not find a path to (" + targetX + ", " + targetY + ").");
+        if (length == 0 && !leg.isDone()) {
+            PathNotFoundException failure = new PathNotFoundException(id, targetX, targetY);
+            log(failure.getMessage() + "!");
+            leg.completeExceptionally(failure);
+        }
+        if (length > 0 && scheduler != null) {
+            scheduler.schedule(schedulerSlot);
         }
     }
 
-    @Override
-    public void run() {
-        while (running) {
-            try {
-                if (x != targetX || y != targetY) {
-                    moveStep();
-                }
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+    // 取放货和充电的等待都在锁外进行，虚拟线程阻塞时不会占住载体线程
+    public void pickUp() throws InterruptedException {
+        synchronized (this) {
+            if (load >= Math.max(1, capacity)) {
+                log("Robot " + id + " is already fully loaded!");
+                return;
             }
         }
-    }
-
-    public synchronized void pickUp() throws InterruptedException {
-        if (isCarrying) {
-            log("Robot " + id + " is already carrying an item!");
-            return;
+        clock.sleep(PICK_UP_MILLIS);
+        synchronized (this) {
+            log("Robot " + id + " picking up an item...");
+            load++;
+            status = "active";
         }
-        Thread.sleep(1000);
-        log("Robot " + id + " picking up an item...");
-        isCarrying = true;
-        status = "active";
     }
 
-    public synchronized void dropOff() throws InterruptedException {
-        if (!isCarrying) {
-            log("Robot " + id + " is not carrying any item!");
-            return;
+    public void dropOff() throws InterruptedException {
+        synchronized (this) {
+            if (load == 0) {
+                log("Robot " + id + " is not carrying any item!");
+                return;
+            }
+        }
+        clock.sleep(DROP_OFF_MILLIS);
+        synchronized (this) {
+            log("Robot " + id + " dropping off an item...");
+            load--;
+            if (load == 0) {
+                status = "inactive";
+            }
+            updateImage();
         }
-        Thread.sleep(1000);
-        log("Robot " + id + " dropping off an item...");
-        isCarrying = false;
-        status = "inactive";
-        updateImage();
     }
 
-    public synchronized void charge() {
-        log("Robot " + id + " is charging...");
-        status = "charging";
+    public void charge() {
+        synchronized (this) {
+            log("Robot " + id + " is charging...");
+            status = "charging";
+        }
         try {
-            Thread.sleep(3000);
-            battery = 100;
-            updateImage();
+            clock.sleep(CHARGE_MILLIS);
+            synchronized (this) {
+                battery = 100;
+                updateImage();
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
-        status = "inactive";
+        synchronized (this) {
+            status = "inactive";
+        }
         log("Robot " + id + " finished charging.");
     }
 
-    public void performTask(int pickUpX, int pickUpY, int dropOffX, int dropOffY) throws InterruptedException {
+    public void performTask(int pickUpX, int pickUpY, int dropOffX, int dropOffY)
+            throws InterruptedException, PathNotFoundException {
+        performTrip(Collections.singletonList(new Point(pickUpX, pickUpY)),
+                Collections.singletonList(new Point(dropOffX, dropOffY)));
+    }
+
+    /**
+     * 一趟多件运输：依次到各取货点装货，再依次到各放货点卸货，件数不超过容量
+     *
+     * @throws PathNotFoundException 某个取放货点不可达，本趟放弃，未送达的货物由调用方处理
+     */
+    public void performTrip(List<Point> pickUps, List<Point> dropOffs)
+            throws InterruptedException, PathNotFoundException {
         status = "active";
         log("Robot " + id + " starting task...");
 
-        moveTo(pickUpX, pickUpY);
-        waitUntilArrived(pickUpX, pickUpY);
-        pickUp();
+        try {
+            for (Point pickUp : pickUps) {
+                moveTo(pickUp.x, pickUp.y);
+                waitUntilArrived();
+                pickUp();
+            }
 
-        moveTo(dropOffX, dropOffY);
-        waitUntilArrived(dropOffX, dropOffY);
-        dropOff();
+            for (Point dropOff : dropOffs) {
+                moveTo(dropOff.x, dropOff.y);
+                waitUntilArrived();
+                dropOff();
+            }
+        } catch (PathNotFoundException e) {
+            synchronized (this) {
+                load = 0;
+                status = "inactive";
+                updateImage();
+            }
+            log("Robot " + id + " abandoned the trip.");
+            throw e;
+        }
 
         if (tobestopped) {
             handleStop();
@@ -253,16 +502,24 @@ public class Robot implements Runnable {
         log("Robot " + id + " completed task.");
     }
 
-    private void handleStop() {
+    private void handleStop() throws InterruptedException {
         if (tobestopped && "inactive".equals(status)) {
-            if (id - 1 < chargingStations.size()) {
-                Point chargingStation = chargingStations.get(id - 1);
+            Point chargingStation = getChargingStation();
+            if (chargingStation != null) {
                 moveTo(chargingStation.x, chargingStation.y);
-                waitUntilArrived(chargingStation.x, chargingStation.y);
-                running = false;
-                status = "deactivated";
                 try {
-                    Thread.sleep(3000);
+                    waitUntilArrived();
+                } catch (PathNotFoundException e) {
+                    // 到不了充电桩时原地停用
+                    log(e.getMessage() + ", deactivating in place.");
+                }
+                synchronized (this) {
+                    running = false;
+                    status = "deactivated";
+                    available = new CompletableFuture<>();
+                }
+                try {
+                    clock.sleep(CHARGE_MILLIS);
                     battery = 100;
                     updateImage();
                 } catch (InterruptedException e) {
@@ -277,52 +534,28 @@ public class Robot implements Runnable {
     }
 
     public synchronized void start() {
-        this.robotThread = new Thread(this);
         running = true;
-        robotThread.start();
         status = "inactive";
         tobestopped = false;
+        available.complete(null);
     }
 
     public Character getName() {
         return name;
     }
 
-    // BFS寻路算法
-    private List<Point> calculatePath(int startX, int startY, int targetX, int targetY) {
-        boolean[][] visited = new boolean[columns][rows];
-        Queue<Point> queue = new LinkedList<>();
-        Map<Point, Point> parentMap = new HashMap<>();
-
-        queue.offer(new Point(startX, startY));
-        visited[startX][startY] = true;
-
-        while (!queue.isEmpty()) {
-            Point current = queue.poll();
-            int cx = current.x, cy = current.y;
-
-            if (cx == targetX && cy == targetY) {
-                List<Point> resultPath = new ArrayList<>();
-                Point step = current;
-                while (step != null) {
-                    resultPath.add(0, step);
-                    step = parentMap.get(step);
-                }
-                return resultPath;
-            }
-
-            int[][] directions = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
-            for (int[] dir : directions) {
-                int nx = cx + dir[0];
-                int ny = cy + dir[1];
-
-                if (!boardOut(nx, ny) && !visited[nx][ny]) {
-                    queue.offer(new Point(nx, ny));
-                    visited[nx][ny] = true;
-                    parentMap.put(new Point(nx, ny), current);
-                }
+    // 调用路径规划器，结果复制到机器人自己的路径缓冲区
+    private int calculatePath(int startX, int startY, int targetX, int targetY) {
+        int length = pathPlanner.plan(startX, startY, targetX, targetY);
+        synchronized (pathLock) {
+            if (path.length < length) {
+                path = new int[Math.max(length, path.length * 2)];
             }
+            System.arraycopy(pathPlanner.getPath(), 0, path, 0, length);
+            pathLength = length;
+            pathIndex = 0;
+            stepsSincePlan = 0;
         }
-
-        return new ArrayList<>();
-    }}
+        return length;
+    }
+}
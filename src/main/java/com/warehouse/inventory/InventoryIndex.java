@@ -0,0 +1,215 @@
+package com.warehouse.inventory;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 库存索引
+ * 按 SKU（名称 + 类别）记录存放该货物的货位。出库订单通过 claim 领取货位，
+ * 领取后的货位不会再分给其他订单，取货完成后 remove。每个 SKU 单独加锁，不同 SKU 之间互不影响。
+ * <p>
+ * 内部按货位编号记录，不用 java.awt.Point 做键（它的哈希在整数坐标上冲突严重）：
+ * 每个 SKU 的可领取货位是一条按入库顺序排列的链表，链表指针按货位编号存放在数组中，
+ * 登记、领取和移除都是常数时间，只在接口处与坐标互相转换。
+ * 同一货位同一时刻只属于一个 SKU，它的数组元素只在该 SKU 的锁内修改。
+ */
+public final class InventoryIndex {
+    private static final int NONE = -1;
+
+    private final ShelfSlotAllocator slots;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // 货位所属的 SKU，不在库为null
+    private final Entry[] owner;
+    private final boolean[] claimed;
+    // 可领取链表中的前后货位
+    private final int[] next;
+    private final int[] previous;
+
+    public InventoryIndex(ShelfSlotAllocator slots) {
+        this.slots = slots;
+        int capacity = slots.getCapacity();
+        this.owner = new Entry[capacity];
+        this.claimed = new boolean[capacity];
+        this.next = new int[capacity];
+        this.previous = new int[capacity];
+        Arrays.fill(next, NONE);
+        Arrays.fill(previous, NONE);
+    }
+
+    public static String sku(String name, String category) {
+        return name + ":" + category;
+    }
+
+    /**
+     * 货物入库完成后登记货位
+     */
+    public void add(String name, String category, Point location) {
+        int slot = slotOf(location);
+        Entry entry = entries.computeIfAbsent(sku(name, category), key -> new Entry());
+        synchronized (entry) {
+            if (owner[slot] == entry) {
+                return;
+            }
+            owner[slot] = entry;
+            claimed[slot] = false;
+            append(entry, slot);
+        }
+    }
+
+    /**
+     * 为出库订单领取若干个存放该 SKU 的货位，先入库的先出库
+     *
+     * @return 领取到的货位，数量不足时返回null且不领取任何货位
+     */
+    public List<Point> claim(String name, String category, int count) {
+        Entry entry = entries.get(sku(name, category));
+        if (entry == null) {
+            return null;
+        }
+        synchronized (entry) {
+            if (entry.available < count) {
+                return null;
+            }
+            List<Point> locations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int slot = entry.head;
+                unlink(entry, slot);
+                claimed[slot] = true;
+                entry.claimed++;
+                locations.add(new Point(slots.slotX(slot), slots.slotY(slot)));
+            }
+            return locations;
+        }
+    }
+
+    /**
+     * 订单放弃取货时把领取的货位放回，可以再分给其他订单
+     */
+    public void release(String name, String category, Point location) {
+        int slot = slotOf(location);
+        Entry entry = entries.get(sku(name, category));
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (owner[slot] == entry && claimed[slot]) {
+                claimed[slot] = false;
+                entry.claimed--;
+                // 放回的货位比之后入库的更早，排在最前面
+                prepend(entry, slot);
+            }
+        }
+    }
+
+    /**
+     * 取货完成后移除货位（无论是否已被领取）
+     *
+     * @return 索引中存在该货位时返回true
+     */
+    public boolean remove(String name, String category, Point location) {
+        int slot = slotOf(location);
+        Entry entry = entries.get(sku(name, category));
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            if (owner[slot] != entry) {
+                return false;
+            }
+            if (claimed[slot]) {
+                claimed[slot] = false;
+                entry.claimed--;
+            } else {
+                unlink(entry, slot);
+            }
+            owner[slot] = null;
+            return true;
+        }
+    }
+
+    /**
+     * 可供新订单领取的数量
+     */
+    public int getAvailable(String name, String category) {
+        Entry entry = entries.get(sku(name, category));
+        if (entry == null) {
+            return 0;
+        }
+        synchronized (entry) {
+            return entry.available;
+        }
+    }
+
+    /**
+     * 在库数量（包括已被订单领取但尚未取走的）
+     */
+    public int getStored(String name, String category) {
+        Entry entry = entries.get(sku(name, category));
+        if (entry == null) {
+            return 0;
+        }
+        synchronized (entry) {
+            return entry.available + entry.claimed;
+        }
+    }
+
+    private int slotOf(Point location) {
+        int slot = slots.slotAt(location.x, location.y);
+        if (slot == ShelfSlotAllocator.NO_SLOT) {
+            throw new IllegalArgumentException("Not a shelf slot: " + location);
+        }
+        return slot;
+    }
+
+    private void append(Entry entry, int slot) {
+        previous[slot] = entry.tail;
+        next[slot] = NONE;
+        if (entry.tail == NONE) {
+            entry.head = slot;
+        } else {
+            next[entry.tail] = slot;
+        }
+        entry.tail = slot;
+        entry.available++;
+    }
+
+    private void prepend(Entry entry, int slot) {
+        previous[slot] = NONE;
+        next[slot] = entry.head;
+        if (entry.head == NONE) {
+            entry.tail = slot;
+        } else {
+            previous[entry.head] = slot;
+        }
+        entry.head = slot;
+        entry.available++;
+    }
+
+    private void unlink(Entry entry, int slot) {
+        int before = previous[slot];
+        int after = next[slot];
+        if (before == NONE) {
+            entry.head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NONE) {
+            entry.tail = before;
+        } else {
+            previous[after] = before;
+        }
+        previous[slot] = NONE;
+        next[slot] = NONE;
+        entry.available--;
+    }
+
+    private static final class Entry {
+        int head = NONE;
+        int tail = NONE;
+        int available;
+        int claimed;
+    }
+}
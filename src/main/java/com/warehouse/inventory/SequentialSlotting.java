@@ -0,0 +1,18 @@
+package com.warehouse.inventory;
+
+import com.warehouse.model.Product;
+import com.warehouse.view.WarehouseGrid;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * 按货架顺序取第一个空闲货位，不区分货物
+ */
+public class SequentialSlotting implements SlottingStrategy {
+
+    @Override
+    public List<Point> assignLocations(WarehouseGrid grid, List<Product> products) {
+        return grid.assignLocations(products.size());
+    }
+}
@@ -0,0 +1,232 @@
+package com.warehouse.inventory;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 货位分配器
+ * 货位按货架格子的顺序编号为整数，空闲货位保存在整数栈中，
+ * 每个货位记录自己在栈中的下标，分配、按编号占用和释放都是常数时间。
+ * 货位可以划分为若干区（见 {@link #setZones}），每个区一个栈，分配时优先从指定区取，
+ * 该区没有空位时依次退到相邻的区。默认只有一个区。
+ * 所有操作在同一把锁内完成，批量分配要么全部成功要么一个也不分配。
+ */
+public final class ShelfSlotAllocator {
+    public static final int NO_SLOT = -1;
+
+    private final int width;
+    private final int[] slotByCell;
+    private final int[] slotX;
+    private final int[] slotY;
+    // 第 z 区的空闲货位为 free[zoneStart[z] .. zoneStart[z] + zoneFree[z])，栈顶在高端；
+    // position[slot] 为货位在 free 中的下标，已占用为 -1
+    private final int[] free;
+    private final int[] position;
+    private final int[] zoneOf;
+    private int[] zoneStart;
+    private int[] zoneFree;
+    private int freeCount;
+
+    /**
+     * @param width   仓库宽度
+     * @param height  仓库高度
+     * @param shelves 货架格子，按分配优先级排列
+     */
+    public ShelfSlotAllocator(int width, int height, List<Point> shelves) {
+        this.width = width;
+        this.slotByCell = new int[width * height];
+        Arrays.fill(slotByCell, NO_SLOT);
+        int count = shelves.size();
+        this.slotX = new int[count];
+        this.slotY = new int[count];
+        this.free = new int[count];
+        this.position = new int[count];
+        this.zoneOf = new int[count];
+        int[] order = new int[count];
+        for (int slot = 0; slot < count; slot++) {
+            Point shelf = shelves.get(slot);
+            slotX[slot] = shelf.x;
+            slotY[slot] = shelf.y;
+            slotByCell[shelf.y * width + shelf.x] = slot;
+            order[slot] = slot;
+        }
+        // 初始按货架顺序分配
+        setZones(order, new int[]{count});
+    }
+
+    /**
+     * 重新划分分区，已占用的货位保持占用
+     *
+     * @param slotsByPriority 全部货位，按分配优先级从高到低排列
+     * @param zoneSizes       各区依次包含的货位数量，总和等于货位总数
+     */
+    public synchronized void setZones(int[] slotsByPriority, int[] zoneSizes) {
+        if (slotsByPriority.length != free.length || Arrays.stream(zoneSizes).sum() != free.length) {
+            throw new IllegalArgumentException("Zones must cover all " + free.length + " slots");
+        }
+        // 构造时还没有分区，所有货位都是空闲的
+        boolean initialized = zoneStart != null;
+        boolean[] used = new boolean[free.length];
+        for (int slot = 0; slot < free.length; slot++) {
+            used[slot] = initialized && position[slot] < 0;
+        }
+        int zones = zoneSizes.length;
+        zoneStart = new int[zones + 1];
+        zoneFree = new int[zones];
+        freeCount = 0;
+        for (int zone = 0; zone < zones; zone++) {
+            zoneStart[zone + 1] = zoneStart[zone] + zoneSizes[zone];
+            // 每个区内优先级最高的货位放在栈顶
+            for (int i = zoneStart[zone + 1] - 1; i >= zoneStart[zone]; i--) {
+                int slot = slotsByPriority[i];
+                zoneOf[slot] = zone;
+                if (used[slot]) {
+                    position[slot] = -1;
+                } else {
+                    int index = zoneStart[zone] + zoneFree[zone]++;
+                    free[index] = slot;
+                    position[slot] = index;
+                    freeCount++;
+                }
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return free.length;
+    }
+
+    public synchronized int getAvailable() {
+        return freeCount;
+    }
+
+    public synchronized int getZoneCount() {
+        return zoneFree.length;
+    }
+
+    /**
+     * 分配一个空闲货位，优先第0区
+     *
+     * @return 货位编号，没有空闲货位时返回 NO_SLOT
+     */
+    public synchronized int allocate() {
+        return allocateIn(0);
+    }
+
+    /**
+     * 从指定区分配一个空闲货位，该区已满时按距离依次尝试相邻的区（距离相同时先往后）
+     *
+     * @return 货位编号，没有空闲货位时返回 NO_SLOT
+     */
+    public synchronized int allocateIn(int preferredZone) {
+        if (freeCount == 0) {
+            return NO_SLOT;
+        }
+        int zones = zoneFree.length;
+        int preferred = Math.max(0, Math.min(zones - 1, preferredZone));
+        for (int step = 0; step < zones; step++) {
+            int after = preferred + step;
+            if (after < zones && zoneFree[after] > 0) {
+                return takeFrom(after);
+            }
+            int before = preferred - step;
+            if (step > 0 && before >= 0 && zoneFree[before] > 0) {
+                return takeFrom(before);
+            }
+        }
+        return NO_SLOT;
+    }
+
+    // 取出该区空闲货位中的最后一个
+    private int takeFrom(int zone) {
+        int slot = free[zoneStart[zone] + --zoneFree[zone]];
+        position[slot] = -1;
+        freeCount--;
+        return slot;
+    }
+
+    /**
+     * 为一整批货物分配货位
+     *
+     * @return 货位编号数组，空闲货位不足时返回null且不占用任何货位
+     */
+    public synchronized int[] allocate(int count) {
+        return allocateIn(new int[count]);
+    }
+
+    /**
+     * 为一整批货物按各自的优先区分配货位
+     *
+     * @param preferredZones 每件货物的优先区
+     * @return 货位编号数组，空闲货位不足时返回null且不占用任何货位
+     */
+    public synchronized int[] allocateIn(int[] preferredZones) {
+        if (preferredZones.length > freeCount) {
+            return null;
+        }
+        int[] slots = new int[preferredZones.length];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = allocateIn(preferredZones[i]);
+        }
+        return slots;
+    }
+
+    /**
+     * 占用指定货位
+     *
+     * @return 货位原来空闲时返回true
+     */
+    public synchronized boolean claim(int slot) {
+        int index = position[slot];
+        if (index < 0) {
+            return false;
+        }
+        int zone = zoneOf[slot];
+        int last = free[zoneStart[zone] + --zoneFree[zone]];
+        free[index] = last;
+        position[last] = index;
+        position[slot] = -1;
+        freeCount--;
+        return true;
+    }
+
+    /**
+     * 释放货位
+     *
+     * @return 货位原来被占用时返回true
+     */
+    public synchronized boolean release(int slot) {
+        if (position[slot] >= 0) {
+            return false;
+        }
+        int zone = zoneOf[slot];
+        int index = zoneStart[zone] + zoneFree[zone]++;
+        position[slot] = index;
+        free[index] = slot;
+        freeCount++;
+        return true;
+    }
+
+    public synchronized boolean isUsed(int slot) {
+        return position[slot] < 0;
+    }
+
+    /**
+     * 货架格子对应的货位编号
+     *
+     * @return 不是货架格子时返回 NO_SLOT
+     */
+    public int slotAt(int x, int y) {
+        int cell = y * width + x;
+        return x < 0 || x >= width || cell < 0 || cell >= slotByCell.length ? NO_SLOT : slotByCell[cell];
+    }
+
+    public int slotX(int slot) {
+        return slotX[slot];
+    }
+
+    public int slotY(int slot) {
+        return slotY[slot];
+    }
+}
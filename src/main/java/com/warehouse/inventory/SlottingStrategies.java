@@ -0,0 +1,26 @@
+package com.warehouse.inventory;
+
+import com.warehouse.view.WarehouseGrid;
+
+/**
+ * 货位策略工厂
+ * 根据配置名称创建策略：velocity（默认，按出库频率分区）、sequential（按货架顺序）
+ */
+public final class SlottingStrategies {
+    public static final String VELOCITY = "velocity";
+    public static final String SEQUENTIAL = "sequential";
+
+    private SlottingStrategies() {
+    }
+
+    public static SlottingStrategy create(String name, WarehouseGrid grid) {
+        switch (name.toLowerCase()) {
+            case VELOCITY:
+                return new VelocitySlotting(grid);
+            case SEQUENTIAL:
+                return new SequentialSlotting();
+            default:
+                throw new IllegalArgumentException("Unsupported slotting strategy: " + name);
+        }
+    }
+}
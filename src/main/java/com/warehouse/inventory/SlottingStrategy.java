@@ -0,0 +1,26 @@
+package com.warehouse.inventory;
+
+import com.warehouse.model.Product;
+import com.warehouse.view.WarehouseGrid;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * 入库货位选择策略
+ */
+public interface SlottingStrategy {
+
+    /**
+     * 为一批入库货物分配货位
+     *
+     * @return 与 products 一一对应的货位，可用货位不足时返回null且不占用任何货位
+     */
+    List<Point> assignLocations(WarehouseGrid grid, List<Product> products);
+
+    /**
+     * 货物出库完成
+     */
+    default void onPicked(Product product) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.warehouse.inventory;
+
+import com.warehouse.model.Product;
+import com.warehouse.pathfinding.DistanceFieldCache;
+import com.warehouse.view.WarehouseGrid;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按出库频率（ABC分类）选择货位
+ * 货位按到各出库柜台的平均行驶距离排序，最近的20%为A区，其后30%为B区，其余为C区。
+ * 按出库次数从高到低累计，占前80%出库量的SKU为A类，其后15%为B类，其余为C类；
+ * 入库时每类优先放入对应的区，该区满了再退到相邻的区。
+ * 每出库50件重新分类一次；第一次分类之前所有SKU都按B类处理，之后还没有出库记录的SKU按C类处理。
+ * 出库柜台热更新后，下一次分配货位前按新的柜台重新划分分区。
+ */
+public class VelocitySlotting implements SlottingStrategy {
+    public static final int CLASS_A = 0;
+    public static final int CLASS_B = 1;
+    public static final int CLASS_C = 2;
+
+    private static final double A_SLOT_SHARE = 0.2;
+    private static final double B_SLOT_SHARE = 0.3;
+    private static final double A_PICK_SHARE = 0.8;
+    private static final double B_PICK_SHARE = 0.95;
+    // 每出库这么多件重新分类一次
+    private static final int RECLASSIFY_INTERVAL = 50;
+
+    private final ConcurrentHashMap<String, LongAdder> picks = new ConcurrentHashMap<>();
+    private final AtomicLong totalPicks = new AtomicLong();
+    private volatile Map<String, Integer> classes = new HashMap<>();
+    // 当前分区所依据的出库柜台
+    private volatile List<Point> zonedCounters;
+
+    public VelocitySlotting(WarehouseGrid grid) {
+        rezone(grid, grid.getOutboundCounters());
+    }
+
+    /**
+     * 出库柜台变化后重新划分分区；柜台列表在距离场重建之后才发布，此时读到的距离已是新柜台的
+     */
+    private void rezoneIfCountersChanged(WarehouseGrid grid) {
+        if (grid.getOutboundCounters() == zonedCounters) {
+            return;
+        }
+        synchronized (this) {
+            List<Point> counters = grid.getOutboundCounters();
+            if (!counters.equals(zonedCounters)) {
+                rezone(grid, counters);
+            } else {
+                zonedCounters = counters;
+            }
+        }
+    }
+
+    private synchronized void rezone(WarehouseGrid grid, List<Point> counters) {
+        ShelfSlotAllocator allocator = grid.getSlotAllocator();
+        int count = allocator.getCapacity();
+        // 高32位为平均距离，低32位为货位编号，排序后即为按距离从近到远的货位
+        long[] keys = new long[count];
+        for (int slot = 0; slot < count; slot++) {
+            Point access = grid.calculateLocation(allocator.slotX(slot), allocator.slotY(slot));
+            keys[slot] = ((long) outboundCost(grid, counters, access) << 32) | slot;
+        }
+        Arrays.sort(keys);
+        int[] slotsByCost = new int[count];
+        for (int i = 0; i < count; i++) {
+            slotsByCost[i] = (int) keys[i];
+        }
+        int a = (int) Math.round(count * A_SLOT_SHARE);
+        int b = (int) Math.round(count * B_SLOT_SHARE);
+        allocator.setZones(slotsByCost, new int[]{a, b, count - a - b});
+        zonedCounters = counters;
+    }
+
+    private static int outboundCost(WarehouseGrid grid, List<Point> counters, Point access) {
+        if (counters.isEmpty()) {
+            return 0;
+        }
+        DistanceFieldCache distances = grid.getDistanceFields();
+        long total = 0;
+        for (Point counter : counters) {
+            total += distances.estimate(access.x, access.y, counter.x, counter.y);
+        }
+        return (int) (total / counters.size());
+    }
+
+    @Override
+    public List<Point> assignLocations(WarehouseGrid grid, List<Product> products) {
+        rezoneIfCountersChanged(grid);
+        int[] zones = new int[products.size()];
+        for (int i = 0; i < zones.length; i++) {
+            Product product = products.get(i);
+            zones[i] = classOf(product.getName(), product.getCategory());
+        }
+        return grid.assignLocations(zones);
+    }
+
+    @Override
+    public void onPicked(Product product) {
+        picks.computeIfAbsent(InventoryIndex.sku(product.getName(), product.getCategory()),
+                key -> new LongAdder()).increment();
+        if (totalPicks.incrementAndGet() % RECLASSIFY_INTERVAL == 0) {
+            reclassify();
+        }
+    }
+
+    /**
+     * SKU 当前的分类
+     */
+    public int classOf(String name, String category) {
+        Map<String, Integer> current = classes;
+        Integer skuClass = current.get(InventoryIndex.sku(name, category));
+        if (skuClass != null) {
+            return skuClass;
+        }
+        // 没有出库记录的SKU：尚未分类时按B类，已分类后按C类
+        return current.isEmpty() ? CLASS_B : CLASS_C;
+    }
+
+    private synchronized void reclassify() {
+        List<Map.Entry<String, Long>> counts = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<String, LongAdder> entry : picks.entrySet()) {
+            long count = entry.getValue().sum();
+            counts.add(Map.entry(entry.getKey(), count));
+            total += count;
+        }
+        counts.sort((x, y) -> Long.compare(y.getValue(), x.getValue()));
+
+        Map<String, Integer> next = new HashMap<>();
+        long cumulative = 0;
+        for (Map.Entry<String, Long> entry : counts) {
+            double share = (double) cumulative / total;
+            next.put(entry.getKey(), share < A_PICK_SHARE ? CLASS_A : share < B_PICK_SHARE ? CLASS_B : CLASS_C);
+            cumulative += entry.getValue();
+        }
+        classes = next;
+    }
+}
@@ -41,6 +41,13 @@ public class Product {
         this.id = ID_GENERATOR.getAndIncrement();
     }
 
+    /**
+     * 恢复已有货物后调用，之后生成的编号不小于 nextId
+     */
+    public static void advanceIdGenerator(int nextId) {
+        ID_GENERATOR.accumulateAndGet(nextId, Math::max);
+    }
+
     public Integer getId() {
         return id;
     }
@@ -9,6 +9,7 @@ public class Task {
     private int sourceCounterId;
     private int destinationCounterId;
     private ArrayList<Product> products;
+    private long createdAtMillis;
 
     public Task(String type, List<Product> products, int counterId) {
         this.type = type;
@@ -60,6 +61,17 @@ public class Task {
         this.destinationCounterId = destinationCounterId;
     }
 
+    /**
+     * 请求提交给Supervisor的时刻（仿真时钟毫秒），用于统计完成延迟
+     */
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public void setCreatedAtMillis(long createdAtMillis) {
+        this.createdAtMillis = createdAtMillis;
+    }
+
     @Override
     public String toString() {
         return "Task{type='" + type + "', products=" + products.size() +
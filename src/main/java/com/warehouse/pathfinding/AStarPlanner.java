@@ -0,0 +1,77 @@
+package com.warehouse.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * A*寻路器
+ * 使用曼哈顿距离作为启发函数，f 相同时优先扩展离终点更近的格子
+ */
+public final class AStarPlanner extends GridPlanner {
+    private final int[] cost;
+    private final int[] closed;
+    private final CellHeap open;
+
+    public AStarPlanner(GridMap map) {
+        super(map);
+        this.cost = new int[map.getCellCount()];
+        this.closed = new int[map.getCellCount()];
+        this.open = new CellHeap(map.getCellCount());
+    }
+
+    @Override
+    public int plan(int startX, int startY, int targetX, int targetY) {
+        if (!map.contains(startX, startY) || !map.contains(targetX, targetY)) {
+            return 0;
+        }
+        int start = map.cellId(startX, startY);
+        int target = map.cellId(targetX, targetY);
+        int stamp = nextGeneration();
+        open.clear();
+
+        visited[start] = stamp;
+        cost[start] = 0;
+        parent[start] = -1;
+        int h = manhattan(startX, startY, targetX, targetY);
+        open.push(start, key(h, h));
+
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            if (current == target) {
+                return reconstruct(current);
+            }
+            closed[current] = stamp;
+
+            int cx = map.cellX(current);
+            int cy = map.cellY(current);
+            int g = cost[current] + 1;
+            for (int d = 0; d < DX.length; d++) {
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (!map.isWalkable(nx, ny)) {
+                    continue;
+                }
+                int next = map.cellId(nx, ny);
+                if (closed[next] == stamp) {
+                    continue;
+                }
+                if (visited[next] != stamp || g < cost[next]) {
+                    visited[next] = stamp;
+                    cost[next] = g;
+                    parent[next] = current;
+                    int nh = manhattan(nx, ny, targetX, targetY);
+                    open.push(next, key(g + nh, nh));
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    void onGenerationReset() {
+        Arrays.fill(closed, 0);
+    }
+
+    static long key(int f, int h) {
+        return ((long) f << 32) | h;
+    }
+}
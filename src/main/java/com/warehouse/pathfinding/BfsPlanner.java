@@ -0,0 +1,54 @@
+package com.warehouse.pathfinding;
+
+/**
+ * BFS寻路器
+ * 作为参考实现保留；队列、父节点表和访问标记都是可复用的原始类型数组，寻路过程不产生临时对象。
+ */
+public final class BfsPlanner extends GridPlanner {
+    private final int[] queue;
+
+    public BfsPlanner(GridMap map) {
+        super(map);
+        this.queue = new int[map.getCellCount()];
+    }
+
+    @Override
+    public int plan(int startX, int startY, int targetX, int targetY) {
+        if (!map.contains(startX, startY) || !map.contains(targetX, targetY)) {
+            return 0;
+        }
+        int start = map.cellId(startX, startY);
+        int target = map.cellId(targetX, targetY);
+        int stamp = nextGeneration();
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        visited[start] = stamp;
+        parent[start] = -1;
+
+        while (head < tail) {
+            int current = queue[head++];
+            if (current == target) {
+                return reconstruct(current);
+            }
+
+            int cx = map.cellX(current);
+            int cy = map.cellY(current);
+            for (int d = 0; d < DX.length; d++) {
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (!map.isWalkable(nx, ny)) {
+                    continue;
+                }
+                int next = map.cellId(nx, ny);
+                if (visited[next] != stamp) {
+                    visited[next] = stamp;
+                    parent[next] = current;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return 0;
+    }
+}
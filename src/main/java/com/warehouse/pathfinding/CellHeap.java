@@ -0,0 +1,98 @@
+package com.warehouse.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * 以格子编号为元素的二叉最小堆，支持降低键值
+ * 键值越小越先出堆，position 数组在两次搜索之间始终保持为 -1
+ */
+final class CellHeap {
+    private final int[] heap;
+    private final int[] position;
+    private final long[] keys;
+    private int size;
+
+    CellHeap(int cells) {
+        this.heap = new int[cells];
+        this.position = new int[cells];
+        this.keys = new long[cells];
+        Arrays.fill(position, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 插入格子，若已在堆中且新键值更小则上浮
+     */
+    void push(int cell, long key) {
+        int pos = position[cell];
+        if (pos < 0) {
+            pos = size++;
+            heap[pos] = cell;
+            position[cell] = pos;
+        } else if (key >= keys[cell]) {
+            return;
+        }
+        keys[cell] = key;
+        siftUp(pos);
+    }
+
+    int pop() {
+        int top = heap[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int pos) {
+        int cell = heap[pos];
+        long key = keys[cell];
+        while (pos > 0) {
+            int parentPos = (pos - 1) >>> 1;
+            int parentCell = heap[parentPos];
+            if (keys[parentCell] <= key) {
+                break;
+            }
+            heap[pos] = parentCell;
+            position[parentCell] = pos;
+            pos = parentPos;
+        }
+        heap[pos] = cell;
+        position[cell] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int cell = heap[pos];
+        long key = keys[cell];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            if (keys[heap[child]] >= key) {
+                break;
+            }
+            heap[pos] = heap[child];
+            position[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = cell;
+        position[cell] = pos;
+    }
+}
@@ -0,0 +1,564 @@
+package com.warehouse.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * 窗口化协同A*规划器（WHCA*）
+ * 在预约窗口内按 (格子, 步数) 做时空搜索，避开其他机器人已预约的格子，可以原地等待；
+ * 窗口之外不再考虑预约，退化为普通的空间搜索。规划成功后为路线预约占用时刻，
+ * 机器人每走过半个窗口重新规划一次，滚动延长预约。
+ * 机器人移动一步期间同时占用出发格和到达格，因此每个格子预约两步长的时间段。
+ * 窄通道中两个机器人迎面相遇时，窗口内互相让行可能陷入来回摆动；
+ * 连续几次重新规划都没有接近目标时，本段移动改用普通规划器，不再参与预约。
+ * 每段路线的终点登记为停靠格：机器人到达后一直占用它直到下一次规划，窗口之外的搜索也绕开其他机器人的停靠格。
+ * 改用普通规划器的路线、停靠被拒绝的终点、抢占预约失败后的路线都没有预约保护，因此每走一步之前还要检查下一格：
+ * 格子上有其他机器人、或其他机器人在当前时刻预约了该格子时原地等待，两个机器人不会同时进入或交换穿过同一格子。
+ * 被挡住后的下一次规划把其他机器人所在的格子当作障碍绕行；仍然被挡住、且自己也挡着其他机器人时
+ * （例如死胡同里互相等待），先让到旁边的空格子再继续规划。
+ * 单行通道里迎面相遇的机器人可能谁都让不开：连续几次被挡住后的规划都没有接近目标时，不再等待，直接穿过对方。
+ */
+public final class CooperativePlanner implements PathPlanner {
+    private static final int[] DX = { 1, -1, 0, 0, 0 };
+    private static final int[] DY = { 0, 0, 1, -1, 0 };
+    private static final int WAIT = 4;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int MAX_STALLED_PLANS = 2;
+    // 连续这么多次因被挡住而重新规划后，挡着别人的机器人先让路
+    private static final int YIELD_AFTER_BLOCKED_PLANS = 2;
+    // 连续这么多次因被挡住而重新规划后不再等待
+    private static final int MAX_BLOCKED_PLANS = 3;
+
+    private final GridMap map;
+    private final ReservationTable reservations;
+    private final DistanceFieldCache distanceFields;
+    private final PathPlanner fallback;
+    private final int robotId;
+    private int stepTicks;
+    private int windowSteps;
+    private int layers;
+    // 速度变化后新的步长，在下一次规划开始时生效
+    private volatile int requestedStepTicks;
+
+    private int[] nodeState = new int[256];
+    private int[] nodeCost = new int[256];
+    private int[] nodeParent = new int[256];
+    private boolean[] nodeClosed = new boolean[256];
+    private int nodeCount;
+
+    private int[] stateKeys = new int[512];
+    private int[] stateNodes = new int[512];
+    private int[] stateStamps = new int[512];
+    private int stateCount;
+    private int stamp;
+
+    private long[] heapKeys = new long[256];
+    private int[] heapNodes = new int[256];
+    private int heapSize;
+
+    private int[] path = new int[16];
+    private int[] lastPath = path;
+
+    private int[] heldCells = new int[64];
+    private long[] heldTicks = new long[64];
+    private int heldCount;
+    private int parkedCell = -1;
+
+    // 上一次进入格子被拒绝，下一次规划绕开其他机器人所在的格子
+    private volatile boolean blocked;
+    // 本段移动上次接近目标之后因被挡住而重新规划的次数
+    private volatile int blockedPlans;
+    // 正在等待进入的格子，没有时为-1；只在移动线程上访问
+    private int awaitedCell = -1;
+
+    private int legTarget = -1;
+    private int bestRemaining;
+    private int stalledPlans;
+
+    /**
+     * @param reservations   共享的时空预约表
+     * @param distanceFields 距离场缓存，用作启发函数
+     * @param fallback       预约冲突无法解决时使用的普通规划器
+     * @param robotId        机器人编号
+     * @param stepTicks      机器人走一步所需的时刻数
+     */
+    public CooperativePlanner(ReservationTable reservations, DistanceFieldCache distanceFields,
+            PathPlanner fallback, int robotId, int stepTicks) {
+        this.map = fallback.getGridMap();
+        this.reservations = reservations;
+        this.distanceFields = distanceFields;
+        this.fallback = fallback;
+        this.robotId = robotId;
+        applyStepTicks(stepTicks);
+        this.requestedStepTicks = this.stepTicks;
+    }
+
+    private void applyStepTicks(int ticks) {
+        this.stepTicks = Math.max(1, ticks);
+        this.windowSteps = Math.max(1, reservations.getWindow() / this.stepTicks);
+        this.layers = windowSteps + 2;
+    }
+
+    @Override
+    public void setStepMillis(int stepMillis) {
+        requestedStepTicks = (int) Math.ceil((double) stepMillis / reservations.getTickMillis());
+    }
+
+    @Override
+    public GridMap getGridMap() {
+        return map;
+    }
+
+    @Override
+    public int[] getPath() {
+        return lastPath;
+    }
+
+    @Override
+    public int getReplanInterval() {
+        return Math.max(1, windowSteps / 2);
+    }
+
+    @Override
+    public int plan(int startX, int startY, int targetX, int targetY) {
+        if (requestedStepTicks != stepTicks) {
+            applyStepTicks(requestedStepTicks);
+        }
+        releaseAll();
+        if (!map.contains(startX, startY) || !map.contains(targetX, targetY)) {
+            return 0;
+        }
+        int start = map.cellId(startX, startY);
+        // 开始新的规划即离开停靠格
+        unpark();
+        int target = map.cellId(targetX, targetY);
+
+        // 被挡住后的规划次数，换了目标或比之前更接近目标时清零
+        boolean stalled = isStalled(start, target, targetX, targetY);
+        if (blocked) {
+            blocked = false;
+            blockedPlans++;
+        }
+        boolean avoidOccupied = blockedPlans > 0;
+        if (blockedPlans >= YIELD_AFTER_BLOCKED_PLANS && reservations.isAwaited(start, robotId)) {
+            int length = stepAside(start);
+            if (length > 0) {
+                lastPath = path;
+                return length;
+            }
+        }
+        // 被挡住时不改用普通规划器：它不知道其他机器人的位置，会给出同一条被挡住的路线
+        int attempts = stalled && !avoidOccupied ? 0 : MAX_ATTEMPTS;
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            long now = reservations.currentTick();
+            int length = search(start, target, targetX, targetY, now, avoidOccupied);
+            if (length == 0 && avoidOccupied) {
+                // 绕不过去：按原来的方式规划，等对方让开
+                avoidOccupied = false;
+                attempts = stalled ? 0 : MAX_ATTEMPTS;
+                attempt--;
+                continue;
+            }
+            if (length == 0) {
+                break;
+            }
+            if (reserve(length, now)) {
+                lastPath = path;
+                park(path[length - 1], now + (long) (length - 1) * stepTicks);
+                return length;
+            }
+            // 与并发规划的机器人抢占失败，释放后重试
+            releaseAll();
+        }
+
+        int length = fallback.plan(startX, startY, targetX, targetY);
+        lastPath = fallback.getPath();
+        long now = reservations.currentTick();
+        if (length > 0) {
+            park(lastPath[length - 1], now + (long) (length - 1) * stepTicks);
+        } else {
+            // 没有路线时机器人留在原地
+            park(start, now);
+        }
+        return length;
+    }
+
+    @Override
+    public void park(int x, int y) {
+        releaseAll();
+        if (map.contains(x, y)) {
+            int cell = map.cellId(x, y);
+            reservations.occupy(cell, robotId);
+            park(cell, reservations.currentTick());
+        }
+    }
+
+    @Override
+    public boolean tryEnter(int fromX, int fromY, int toX, int toY) {
+        if (!map.contains(toX, toY)) {
+            return true;
+        }
+        int to = map.cellId(toX, toY);
+        // 先占住下一格再让出当前格，交换位置的两个机器人都占不到对方的格子
+        if (blockedPlans >= MAX_BLOCKED_PLANS) {
+            // 互相等待已经持续了好几次规划：不再等待，直接通过；格子上已有机器人时不抢它的登记
+            reservations.occupy(to, robotId);
+        } else if (reservations.isReserved(to, reservations.currentTick(), robotId)
+                || !reservations.occupy(to, robotId)) {
+            blocked = true;
+            if (awaitedCell != to) {
+                stopWaiting();
+                reservations.await(to, robotId);
+                awaitedCell = to;
+            }
+            return false;
+        }
+        stopWaiting();
+        if (map.contains(fromX, fromY)) {
+            reservations.vacate(map.cellId(fromX, fromY), robotId);
+        }
+        return true;
+    }
+
+    private void stopWaiting() {
+        if (awaitedCell >= 0) {
+            reservations.stopWaiting(awaitedCell, robotId);
+            awaitedCell = -1;
+        }
+    }
+
+    /**
+     * 让到旁边一个没有机器人、也没有其他机器人等待进入的格子；路线在那里结束，机器人走到后重新规划
+     * 从不同方向开始查找，几个互相等待的机器人不会总是让到同一侧
+     *
+     * @return 路线长度，周围没有可以让的格子时返回0
+     */
+    private int stepAside(int start) {
+        int cx = map.cellX(start);
+        int cy = map.cellY(start);
+        long now = reservations.currentTick();
+        for (int i = 0; i < WAIT; i++) {
+            int d = (robotId + blockedPlans + i) % WAIT;
+            int nx = cx + DX[d];
+            int ny = cy + DY[d];
+            if (!map.isWalkable(nx, ny)) {
+                continue;
+            }
+            int next = map.cellId(nx, ny);
+            if (reservations.isOccupied(next, robotId) || reservations.isAwaited(next, robotId)
+                    || reservations.isReserved(next, now, robotId)) {
+                continue;
+            }
+            if (path.length < 2) {
+                path = new int[16];
+            }
+            path[0] = start;
+            path[1] = next;
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * 登记停靠格；格子已被其他机器人停靠时不登记，冲突由 {@link #tryEnter} 在移动时处理
+     */
+    private void park(int cell, long fromTick) {
+        if (reservations.park(cell, fromTick, robotId)) {
+            parkedCell = cell;
+        }
+    }
+
+    private void unpark() {
+        if (parkedCell >= 0) {
+            reservations.unpark(parkedCell, robotId);
+            parkedCell = -1;
+        }
+    }
+
+    /**
+     * 记录本段移动离目标最近的距离，重新规划时没有更接近目标则计为一次停滞
+     */
+    private boolean isStalled(int start, int target, int targetX, int targetY) {
+        int remaining = heuristic(start, targetX, targetY);
+        if (target != legTarget) {
+            legTarget = target;
+            bestRemaining = remaining;
+            stalledPlans = 0;
+            blocked = false;
+            blockedPlans = 0;
+        } else if (remaining < bestRemaining) {
+            bestRemaining = remaining;
+            blockedPlans = 0;
+            if (stalledPlans < MAX_STALLED_PLANS) {
+                stalledPlans = 0;
+            }
+        } else if (stalledPlans < MAX_STALLED_PLANS) {
+            stalledPlans++;
+        }
+        return stalledPlans >= MAX_STALLED_PLANS;
+    }
+
+    /**
+     * @param avoidOccupied 是否把其他机器人当前所在的格子当作障碍
+     */
+    private int search(int start, int target, int targetX, int targetY, long now, boolean avoidOccupied) {
+        resetSearch();
+        int startNode = addNode(start * layers, 0, -1);
+        int h = heuristic(start, targetX, targetY);
+        push(startNode, AStarPlanner.key(h, h));
+
+        while (heapSize > 0) {
+            int node = pop();
+            if (nodeClosed[node]) {
+                continue;
+            }
+            nodeClosed[node] = true;
+
+            int cell = nodeState[node] / layers;
+            int step = nodeState[node] % layers;
+            if (cell == target && (step > windowSteps || isFreeUntilHorizon(cell, now, step))) {
+                return reconstruct(node);
+            }
+
+            int cx = map.cellX(cell);
+            int cy = map.cellY(cell);
+            int nextStep = Math.min(step + 1, windowSteps + 1);
+            int cost = nodeCost[node] + 1;
+            for (int d = 0; d < DX.length; d++) {
+                if (d == WAIT && step > windowSteps) {
+                    continue;
+                }
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (!map.isWalkable(nx, ny)) {
+                    continue;
+                }
+                int next = map.cellId(nx, ny);
+                if (step < windowSteps && !isFree(next, now, step + 1)) {
+                    continue;
+                }
+                // 第一步不进入其他机器人正在的格子（它可能没有预约）
+                if ((step == 0 || avoidOccupied) && next != cell && next != target
+                        && reservations.isOccupied(next, robotId)) {
+                    continue;
+                }
+                // 窗口之外不看预约，但其他机器人停着的格子仍然绕开
+                if (step >= windowSteps && next != target && reservations.isParked(next, robotId)) {
+                    continue;
+                }
+                int state = next * layers + nextStep;
+                int existing = findNode(state);
+                if (existing < 0) {
+                    int nh = heuristic(next, targetX, targetY);
+                    push(addNode(state, cost, node), AStarPlanner.key(cost + nh, nh));
+                } else if (!nodeClosed[existing] && cost < nodeCost[existing]) {
+                    nodeCost[existing] = cost;
+                    nodeParent[existing] = node;
+                    int nh = heuristic(next, targetX, targetY);
+                    push(existing, AStarPlanner.key(cost + nh, nh));
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 第 step 步到达的格子在 [step, step + 2) 步长的时间段内都不能被其他机器人预约
+     */
+    private boolean isFree(int cell, long now, int step) {
+        long horizon = now + reservations.getWindow();
+        long from = now + (long) step * stepTicks;
+        long to = Math.min(horizon, from + 2L * stepTicks);
+        for (long tick = from; tick <= to; tick++) {
+            if (!reservations.isFree(cell, tick, robotId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 停在终点时要一直占用到窗口结束
+     */
+    private boolean isFreeUntilHorizon(int cell, long now, int step) {
+        long horizon = now + reservations.getWindow();
+        for (long tick = now + (long) step * stepTicks; tick <= horizon; tick++) {
+            if (!reservations.isFree(cell, tick, robotId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean reserve(int length, long now) {
+        long horizon = now + reservations.getWindow();
+        for (int i = 0; i < length; i++) {
+            long from = now + (long) i * stepTicks;
+            if (from > horizon) {
+                break;
+            }
+            // 终点一直占用到窗口结束
+            long to = i == length - 1 ? horizon : Math.min(horizon, from + 2L * stepTicks);
+            for (long tick = from; tick <= to; tick++) {
+                if (reservations.tryReserve(path[i], tick, robotId)) {
+                    hold(path[i], tick);
+                } else if (i > 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void hold(int cell, long tick) {
+        if (heldCount == heldCells.length) {
+            heldCells = Arrays.copyOf(heldCells, heldCount * 2);
+            heldTicks = Arrays.copyOf(heldTicks, heldCount * 2);
+        }
+        heldCells[heldCount] = cell;
+        heldTicks[heldCount] = tick;
+        heldCount++;
+    }
+
+    // 只释放时段预约，停靠格在下一次规划时释放
+    private void releaseAll() {
+        for (int i = 0; i < heldCount; i++) {
+            reservations.release(heldCells[i], heldTicks[i], robotId);
+        }
+        heldCount = 0;
+    }
+
+    private int heuristic(int cell, int targetX, int targetY) {
+        return distanceFields.estimate(map.cellX(cell), map.cellY(cell), targetX, targetY);
+    }
+
+    private int reconstruct(int node) {
+        int length = 0;
+        for (int n = node; n != -1; n = nodeParent[n]) {
+            length++;
+        }
+        if (path.length < length) {
+            path = new int[Math.max(length, path.length * 2)];
+        }
+        int i = length;
+        for (int n = node; n != -1; n = nodeParent[n]) {
+            path[--i] = nodeState[n] / layers;
+        }
+        return length;
+    }
+
+    // ---------- 搜索节点与状态索引 ----------
+
+    private void resetSearch() {
+        nodeCount = 0;
+        heapSize = 0;
+        stateCount = 0;
+        if (++stamp == 0) {
+            Arrays.fill(stateStamps, 0);
+            stamp = 1;
+        }
+    }
+
+    private int addNode(int state, int cost, int parentNode) {
+        if (nodeCount == nodeState.length) {
+            int capacity = nodeCount * 2;
+            nodeState = Arrays.copyOf(nodeState, capacity);
+            nodeCost = Arrays.copyOf(nodeCost, capacity);
+            nodeParent = Arrays.copyOf(nodeParent, capacity);
+            nodeClosed = Arrays.copyOf(nodeClosed, capacity);
+        }
+        int node = nodeCount++;
+        nodeState[node] = state;
+        nodeCost[node] = cost;
+        nodeParent[node] = parentNode;
+        nodeClosed[node] = false;
+        putState(state, node);
+        return node;
+    }
+
+    private int findNode(int state) {
+        int mask = stateKeys.length - 1;
+        for (int i = mix(state) & mask; stateStamps[i] == stamp; i = (i + 1) & mask) {
+            if (stateKeys[i] == state) {
+                return stateNodes[i];
+            }
+        }
+        return -1;
+    }
+
+    private void putState(int state, int node) {
+        if ((stateCount + 1) * 2 > stateKeys.length) {
+            growStates();
+        }
+        int mask = stateKeys.length - 1;
+        int i = mix(state) & mask;
+        while (stateStamps[i] == stamp) {
+            i = (i + 1) & mask;
+        }
+        stateKeys[i] = state;
+        stateNodes[i] = node;
+        stateStamps[i] = stamp;
+        stateCount++;
+    }
+
+    private void growStates() {
+        int capacity = stateKeys.length * 2;
+        stateKeys = new int[capacity];
+        stateNodes = new int[capacity];
+        stateStamps = new int[capacity];
+        stamp = 1;
+        stateCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            putState(nodeState[node], node);
+        }
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void push(int node, long key) {
+        if (heapSize == heapNodes.length) {
+            heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+        }
+        int pos = heapSize++;
+        while (pos > 0) {
+            int parentPos = (pos - 1) >>> 1;
+            if (heapKeys[parentPos] <= key) {
+                break;
+            }
+            heapNodes[pos] = heapNodes[parentPos];
+            heapKeys[pos] = heapKeys[parentPos];
+            pos = parentPos;
+        }
+        heapNodes[pos] = node;
+        heapKeys[pos] = key;
+    }
+
+    private int pop() {
+        int top = heapNodes[0];
+        heapSize--;
+        if (heapSize > 0) {
+            int node = heapNodes[heapSize];
+            long key = heapKeys[heapSize];
+            int pos = 0;
+            int half = heapSize >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                    child++;
+                }
+                if (heapKeys[child] >= key) {
+                    break;
+                }
+                heapNodes[pos] = heapNodes[child];
+                heapKeys[pos] = heapKeys[child];
+                pos = child;
+            }
+            heapNodes[pos] = node;
+            heapKeys[pos] = key;
+        }
+        return top;
+    }
+}
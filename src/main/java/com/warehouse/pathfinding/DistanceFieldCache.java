@@ -0,0 +1,145 @@
+package com.warehouse.pathfinding;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.IntStream;
+
+/**
+ * 地标距离场缓存
+ * 为柜台、充电桩和货架取放货位等固定地标各保存一张到全图的BFS距离场，
+ * 到地标的路线可以沿距离递减方向直接下降得到，任意格子到地标的距离查询为O(1)。
+ * 距离场在启动时并行构建；布局变化时调用 {@link #rebuild} 整体替换。
+ */
+public final class DistanceFieldCache {
+    public static final int UNREACHABLE = -1;
+
+    /** 默认最多缓存的距离场格子总数（约64MB），超出预算的地标不缓存，由搜索兜底 */
+    public static final long DEFAULT_BUDGET = 16_000_000L;
+
+    private final long budget;
+    private volatile Fields current;
+
+    public DistanceFieldCache(GridMap map) {
+        this(map, DEFAULT_BUDGET);
+    }
+
+    public DistanceFieldCache(GridMap map, long budget) {
+        this.budget = budget;
+        this.current = new Fields(map);
+    }
+
+    public GridMap getGridMap() {
+        return current.map;
+    }
+
+    /**
+     * 用新的地图和地标集合重建缓存，构建完成后原子替换
+     *
+     * @param map       布局对应的地图
+     * @param landmarks 地标位置，按优先级排序（预算不足时靠后的地标不缓存）
+     */
+    public void rebuild(GridMap map, Collection<Point> landmarks) {
+        Fields fields = new Fields(map);
+        int cells = map.getCellCount();
+        int limit = (int) Math.min(landmarks.size(), budget / Math.max(1, cells));
+
+        int[] sources = landmarks.stream()
+                .filter(p -> map.isWalkable(p.x, p.y))
+                .mapToInt(p -> map.cellId(p.x, p.y))
+                .distinct()
+                .limit(limit)
+                .toArray();
+        ThreadLocal<int[]> queues = ThreadLocal.withInitial(() -> new int[cells]);
+        IntStream.of(sources).parallel()
+                .forEach(source -> fields.byCell[source] = buildField(map, source, queues.get()));
+        current = fields;
+    }
+
+    /**
+     * 清空所有距离场，之后的查询全部退回搜索或曼哈顿估计
+     */
+    public void invalidate() {
+        current = new Fields(current.map);
+    }
+
+    /**
+     * 获取以 (x, y) 为地标的距离场，未缓存时返回null
+     */
+    public int[] field(int x, int y) {
+        Fields fields = current;
+        if (!fields.map.contains(x, y)) {
+            return null;
+        }
+        return fields.byCell[fields.map.cellId(x, y)];
+    }
+
+    /**
+     * 两点之间的真实路径长度，任一端是已缓存的地标时为O(1)
+     *
+     * @return 步数；没有缓存时返回 {@link #UNREACHABLE}
+     */
+    public int distance(int fromX, int fromY, int toX, int toY) {
+        Fields fields = current;
+        GridMap map = fields.map;
+        if (!map.contains(fromX, fromY) || !map.contains(toX, toY)) {
+            return UNREACHABLE;
+        }
+        int from = map.cellId(fromX, fromY);
+        int to = map.cellId(toX, toY);
+        int[] field = fields.byCell[to];
+        if (field != null) {
+            return field[from];
+        }
+        field = fields.byCell[from];
+        return field != null ? field[to] : UNREACHABLE;
+    }
+
+    /**
+     * 行驶距离估计：有距离场时用真实路径长度，否则用曼哈顿距离
+     */
+    public int estimate(int fromX, int fromY, int toX, int toY) {
+        int distance = distance(fromX, fromY, toX, toY);
+        if (distance >= 0) {
+            return distance;
+        }
+        return Math.abs(fromX - toX) + Math.abs(fromY - toY);
+    }
+
+    private static int[] buildField(GridMap map, int source, int[] queue) {
+        int[] field = new int[map.getCellCount()];
+        Arrays.fill(field, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        field[source] = 0;
+        while (head < tail) {
+            int current = queue[head++];
+            int cx = map.cellX(current);
+            int cy = map.cellY(current);
+            int next = field[current] + 1;
+            for (int d = 0; d < GridPlanner.DX.length; d++) {
+                int nx = cx + GridPlanner.DX[d];
+                int ny = cy + GridPlanner.DY[d];
+                if (map.isWalkable(nx, ny)) {
+                    int cell = map.cellId(nx, ny);
+                    if (field[cell] == UNREACHABLE) {
+                        field[cell] = next;
+                        queue[tail++] = cell;
+                    }
+                }
+            }
+        }
+        return field;
+    }
+
+    private static final class Fields {
+        final GridMap map;
+        final int[][] byCell;
+
+        Fields(GridMap map) {
+            this.map = map;
+            this.byCell = new int[map.getCellCount()][];
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.warehouse.pathfinding;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * 仓库网格地图
+ * 由货架列表一次性构建的不可变障碍位图，格子编号为 y * width + x
+ */
+public final class GridMap {
+    private final int width;
+    private final int height;
+    private final long[] obstacles;
+
+    public GridMap(int width, int height, List<Point> shelves) {
+        this.width = width;
+        this.height = height;
+        this.obstacles = new long[(width * height + 63) >>> 6];
+        for (Point shelf : shelves) {
+            if (contains(shelf.x, shelf.y)) {
+                int cell = cellId(shelf.x, shelf.y);
+                obstacles[cell >>> 6] |= 1L << cell;
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCellCount() {
+        return width * height;
+    }
+
+    public int cellId(int x, int y) {
+        return y * width + x;
+    }
+
+    public int cellX(int cell) {
+        return cell % width;
+    }
+
+    public int cellY(int cell) {
+        return cell / width;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public boolean isObstacle(int cell) {
+        return (obstacles[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public boolean isObstacle(int x, int y) {
+        return contains(x, y) && isObstacle(cellId(x, y));
+    }
+
+    /**
+     * 判断格子是否可通行（在地图范围内且不是货架）
+     */
+    public boolean isWalkable(int x, int y) {
+        return contains(x, y) && !isObstacle(cellId(x, y));
+    }
+}
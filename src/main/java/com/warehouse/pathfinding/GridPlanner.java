@@ -0,0 +1,77 @@
+package com.warehouse.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * 网格规划器基类
+ * 提供父节点表、按代次标记的访问数组和路径缓冲区，避免每次规划清空数组
+ */
+abstract class GridPlanner implements PathPlanner {
+    static final int[] DX = { 1, -1, 0, 0 };
+    static final int[] DY = { 0, 0, 1, -1 };
+
+    final GridMap map;
+    final int[] parent;
+    final int[] visited;
+    private int[] path;
+    private int generation;
+
+    GridPlanner(GridMap map) {
+        this.map = map;
+        this.parent = new int[map.getCellCount()];
+        this.visited = new int[map.getCellCount()];
+        this.path = new int[16];
+    }
+
+    @Override
+    public GridMap getGridMap() {
+        return map;
+    }
+
+    @Override
+    public int[] getPath() {
+        return path;
+    }
+
+    int nextGeneration() {
+        if (++generation == 0) {
+            Arrays.fill(visited, 0);
+            onGenerationReset();
+            generation = 1;
+        }
+        return generation;
+    }
+
+    /**
+     * 代次计数溢出时调用，子类清空自己的标记数组
+     */
+    void onGenerationReset() {
+    }
+
+    int[] pathBuffer(int length) {
+        if (path.length < length) {
+            path = new int[Math.max(length, path.length * 2)];
+        }
+        return path;
+    }
+
+    /**
+     * 沿父节点表回溯相邻格子组成的路径
+     */
+    int reconstruct(int target) {
+        int length = 0;
+        for (int step = target; step != -1; step = parent[step]) {
+            length++;
+        }
+        int[] buffer = pathBuffer(length);
+        int i = length;
+        for (int step = target; step != -1; step = parent[step]) {
+            buffer[--i] = step;
+        }
+        return length;
+    }
+
+    static int manhattan(int ax, int ay, int bx, int by) {
+        return Math.abs(ax - bx) + Math.abs(ay - by);
+    }
+}
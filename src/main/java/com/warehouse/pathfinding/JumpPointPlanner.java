@@ -0,0 +1,155 @@
+package com.warehouse.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * 跳点搜索（Jump Point Search）寻路器
+ * 适用于四连通、代价均匀的网格：沿直线跳过对称路径，只把转折点（跳点）放入开放列表，
+ * 最后把相邻跳点之间的直线段展开为逐格路径。
+ */
+public final class JumpPointPlanner extends GridPlanner {
+    private final int[] cost;
+    private final int[] closed;
+    private final CellHeap open;
+    private int target;
+
+    public JumpPointPlanner(GridMap map) {
+        super(map);
+        this.cost = new int[map.getCellCount()];
+        this.closed = new int[map.getCellCount()];
+        this.open = new CellHeap(map.getCellCount());
+    }
+
+    @Override
+    public int plan(int startX, int startY, int targetX, int targetY) {
+        if (!map.contains(startX, startY) || !map.contains(targetX, targetY)) {
+            return 0;
+        }
+        int start = map.cellId(startX, startY);
+        target = map.cellId(targetX, targetY);
+        int stamp = nextGeneration();
+        open.clear();
+
+        visited[start] = stamp;
+        cost[start] = 0;
+        parent[start] = -1;
+        int h = manhattan(startX, startY, targetX, targetY);
+        open.push(start, AStarPlanner.key(h, h));
+
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            if (current == target) {
+                return expand(current);
+            }
+            closed[current] = stamp;
+
+            int cx = map.cellX(current);
+            int cy = map.cellY(current);
+            int from = parent[current];
+            if (from < 0) {
+                for (int d = 0; d < DX.length; d++) {
+                    identifySuccessor(current, cx, cy, DX[d], DY[d], targetX, targetY, stamp);
+                }
+            } else {
+                int dx = Integer.signum(cx - map.cellX(from));
+                int dy = Integer.signum(cy - map.cellY(from));
+                if (dx != 0) {
+                    identifySuccessor(current, cx, cy, 0, -1, targetX, targetY, stamp);
+                    identifySuccessor(current, cx, cy, 0, 1, targetX, targetY, stamp);
+                    identifySuccessor(current, cx, cy, dx, 0, targetX, targetY, stamp);
+                } else {
+                    identifySuccessor(current, cx, cy, -1, 0, targetX, targetY, stamp);
+                    identifySuccessor(current, cx, cy, 1, 0, targetX, targetY, stamp);
+                    identifySuccessor(current, cx, cy, 0, dy, targetX, targetY, stamp);
+                }
+            }
+        }
+        return 0;
+    }
+
+    private void identifySuccessor(int current, int cx, int cy, int dx, int dy,
+            int targetX, int targetY, int stamp) {
+        int jumpPoint = jump(cx + dx, cy + dy, dx, dy);
+        if (jumpPoint < 0 || closed[jumpPoint] == stamp) {
+            return;
+        }
+        int jx = map.cellX(jumpPoint);
+        int jy = map.cellY(jumpPoint);
+        int g = cost[current] + manhattan(cx, cy, jx, jy);
+        if (visited[jumpPoint] != stamp || g < cost[jumpPoint]) {
+            visited[jumpPoint] = stamp;
+            cost[jumpPoint] = g;
+            parent[jumpPoint] = current;
+            int h = manhattan(jx, jy, targetX, targetY);
+            open.push(jumpPoint, AStarPlanner.key(g + h, h));
+        }
+    }
+
+    /**
+     * 沿 (dx, dy) 方向前进，直到遇到终点、强制邻居或障碍
+     * 纵向前进时每一步都要检查横向是否存在跳点
+     *
+     * @return 跳点编号，没有跳点返回 -1
+     */
+    private int jump(int x, int y, int dx, int dy) {
+        while (map.isWalkable(x, y)) {
+            int cell = map.cellId(x, y);
+            if (cell == target) {
+                return cell;
+            }
+            if (dx != 0) {
+                if ((map.isWalkable(x, y - 1) && !map.isWalkable(x - dx, y - 1))
+                        || (map.isWalkable(x, y + 1) && !map.isWalkable(x - dx, y + 1))) {
+                    return cell;
+                }
+            } else {
+                if ((map.isWalkable(x - 1, y) && !map.isWalkable(x - 1, y - dy))
+                        || (map.isWalkable(x + 1, y) && !map.isWalkable(x + 1, y - dy))) {
+                    return cell;
+                }
+                if (jump(x + 1, y, 1, 0) >= 0 || jump(x - 1, y, -1, 0) >= 0) {
+                    return cell;
+                }
+            }
+            x += dx;
+            y += dy;
+        }
+        return -1;
+    }
+
+    /**
+     * 把跳点链展开为逐格路径
+     */
+    private int expand(int last) {
+        int length = 1;
+        for (int step = last; parent[step] != -1; step = parent[step]) {
+            int prev = parent[step];
+            length += manhattan(map.cellX(step), map.cellY(step), map.cellX(prev), map.cellY(prev));
+        }
+        int[] buffer = pathBuffer(length);
+        int i = length;
+        int step = last;
+        while (parent[step] != -1) {
+            int prev = parent[step];
+            int x = map.cellX(step);
+            int y = map.cellY(step);
+            int px = map.cellX(prev);
+            int py = map.cellY(prev);
+            int dx = Integer.signum(px - x);
+            int dy = Integer.signum(py - y);
+            while (x != px || y != py) {
+                buffer[--i] = map.cellId(x, y);
+                x += dx;
+                y += dy;
+            }
+            step = prev;
+        }
+        buffer[--i] = step;
+        return length;
+    }
+
+    @Override
+    void onGenerationReset() {
+        Arrays.fill(closed, 0);
+    }
+}
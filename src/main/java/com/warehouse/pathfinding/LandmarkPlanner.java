@@ -0,0 +1,66 @@
+package com.warehouse.pathfinding;
+
+/**
+ * 地标路径规划器
+ * 终点是已缓存距离场的地标时，沿距离场逐格下降得到最短路径；否则交给底层规划器搜索
+ */
+public final class LandmarkPlanner implements PathPlanner {
+    private final DistanceFieldCache distanceFields;
+    private final PathPlanner fallback;
+    private int[] path = new int[16];
+    private int[] lastPath;
+
+    public LandmarkPlanner(DistanceFieldCache distanceFields, PathPlanner fallback) {
+        this.distanceFields = distanceFields;
+        this.fallback = fallback;
+        this.lastPath = path;
+    }
+
+    @Override
+    public GridMap getGridMap() {
+        return fallback.getGridMap();
+    }
+
+    @Override
+    public int plan(int startX, int startY, int targetX, int targetY) {
+        GridMap map = fallback.getGridMap();
+        int[] field = distanceFields.getGridMap() == map ? distanceFields.field(targetX, targetY) : null;
+        if (field == null || !map.contains(startX, startY)) {
+            int length = fallback.plan(startX, startY, targetX, targetY);
+            lastPath = fallback.getPath();
+            return length;
+        }
+
+        int current = map.cellId(startX, startY);
+        int distance = field[current];
+        if (distance == DistanceFieldCache.UNREACHABLE) {
+            return 0;
+        }
+        int length = distance + 1;
+        if (path.length < length) {
+            path = new int[Math.max(length, path.length * 2)];
+        }
+        path[0] = current;
+        for (int i = 1; i < length; i++) {
+            int cx = map.cellX(current);
+            int cy = map.cellY(current);
+            for (int d = 0; d < GridPlanner.DX.length; d++) {
+                int nx = cx + GridPlanner.DX[d];
+                int ny = cy + GridPlanner.DY[d];
+                if (map.contains(nx, ny) && field[map.cellId(nx, ny)] == distance - 1) {
+                    current = map.cellId(nx, ny);
+                    break;
+                }
+            }
+            distance--;
+            path[i] = current;
+        }
+        lastPath = path;
+        return length;
+    }
+
+    @Override
+    public int[] getPath() {
+        return lastPath;
+    }
+}
@@ -0,0 +1,50 @@
+package com.warehouse.pathfinding;
+
+/**
+ * 路径规划器接口
+ * 路径以格子编号数组的形式返回（包含起点），实现类复用内部缓冲区，不是线程安全的
+ */
+public interface PathPlanner {
+
+    GridMap getGridMap();
+
+    /**
+     * 计算从起点到终点的路径，结果写入 {@link #getPath()}
+     *
+     * @return 路径长度（包含起点），找不到路径时返回0
+     */
+    int plan(int startX, int startY, int targetX, int targetY);
+
+    /**
+     * 最近一次规划的结果，仅在下一次调用 plan 之前有效
+     */
+    int[] getPath();
+
+    /**
+     * 机器人沿路径走多少步后需要重新规划，0 表示不需要
+     * 预约类规划器只对有限窗口内的路线负责，需要滚动重规划
+     */
+    default int getReplanInterval() {
+        return 0;
+    }
+
+    /**
+     * 机器人速度变化时调用，按时间预约的规划器据此调整每步占用的时刻数
+     */
+    default void setStepMillis(int stepMillis) {
+    }
+
+    /**
+     * 机器人停在格子上等待下一段移动时调用，预约类规划器为它一直保留该格子
+     */
+    default void park(int x, int y) {
+    }
+
+    /**
+     * 机器人从一个格子走到相邻格子之前调用；返回false时机器人原地等待，下一步再试
+     * 预约类规划器在目标格子上有其他机器人、或其他机器人在当前时刻预约了该格子时拒绝进入
+     */
+    default boolean tryEnter(int fromX, int fromY, int toX, int toY) {
+        return true;
+    }
+}
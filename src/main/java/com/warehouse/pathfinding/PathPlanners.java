@@ -0,0 +1,29 @@
+package com.warehouse.pathfinding;
+
+/**
+ * 路径规划器工厂
+ * 根据配置名称创建规划器：bfs（默认）、astar、jps；
+ * cooperative 为带时空预约的多机器人协同规划，需要共享的预约表，由配置加载器单独创建
+ */
+public final class PathPlanners {
+    public static final String BFS = "bfs";
+    public static final String ASTAR = "astar";
+    public static final String JPS = "jps";
+    public static final String COOPERATIVE = "cooperative";
+
+    private PathPlanners() {
+    }
+
+    public static PathPlanner create(String name, GridMap map) {
+        switch (name.toLowerCase()) {
+            case BFS:
+                return new BfsPlanner(map);
+            case ASTAR:
+                return new AStarPlanner(map);
+            case JPS:
+                return new JumpPointPlanner(map);
+            default:
+                throw new IllegalArgumentException("Unsupported path planner: " + name);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.warehouse.pathfinding;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 时空预约表
+ * 记录 (格子, 时刻) 由哪个机器人占用。每个格子有一个按时刻取模的环形槽位，
+ * 槽位中以 ((tick + 1) << 16) | robotId 编码，预约与释放都是单个槽位上的CAS，无全局锁。
+ * 只跟踪当前时刻之后 window 个时刻内的预约，更早的槽位视为过期，可以直接覆盖。
+ * 停在格子上等待下一段移动的机器人另外登记停靠：从到达时刻起一直占用该格子，不受窗口限制，直到它再次出发。
+ * 预约和停靠都是计划；机器人实际所在的格子另外记录，每个格子同一时刻只允许一个机器人进入。
+ */
+public final class ReservationTable {
+    private static final int ROBOT_BITS = 16;
+    private static final long ROBOT_MASK = (1L << ROBOT_BITS) - 1;
+
+    private final int window;
+    private final int slotShift;
+    private final int slotMask;
+    private final long tickNanos;
+    private final LongSupplier nanoClock;
+    private final long epoch;
+    private final AtomicLongArray slots;
+    // 每个格子的停靠登记，编码与预约槽位相同，时刻为开始停靠的时刻
+    private final AtomicLongArray parked;
+    // 每个格子上实际所在的机器人（编号加一），0 表示没有机器人
+    private final AtomicIntegerArray occupants;
+    // 正在等待进入每个格子的机器人（编号加一），0 表示没有
+    private final AtomicIntegerArray waiting;
+
+    /**
+     * @param cellCount  地图格子数
+     * @param window     预约窗口长度（时刻数）
+     * @param tickMillis 每个时刻对应的毫秒数
+     */
+    public ReservationTable(int cellCount, int window, long tickMillis) {
+        this(cellCount, window, tickMillis, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock 时刻的时间来源（纳秒），虚拟时间仿真时传入仿真时钟
+     */
+    public ReservationTable(int cellCount, int window, long tickMillis, LongSupplier nanoClock) {
+        this.window = window;
+        int slotsPerCell = Integer.highestOneBit(Math.max(2, window * 2 - 1)) << 1;
+        this.slotShift = Integer.numberOfTrailingZeros(slotsPerCell);
+        this.slotMask = slotsPerCell - 1;
+        this.tickNanos = tickMillis * 1_000_000L;
+        this.nanoClock = nanoClock;
+        this.epoch = nanoClock.getAsLong();
+        this.slots = new AtomicLongArray(cellCount * slotsPerCell);
+        this.parked = new AtomicLongArray(cellCount);
+        this.occupants = new AtomicIntegerArray(cellCount);
+        this.waiting = new AtomicIntegerArray(cellCount);
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public long getTickMillis() {
+        return tickNanos / 1_000_000L;
+    }
+
+    public long currentTick() {
+        return (nanoClock.getAsLong() - epoch) / tickNanos;
+    }
+
+    /**
+     * 判断格子在该时刻是否空闲（或已被同一机器人预约）
+     */
+    public boolean isFree(int cell, long tick, int robotId) {
+        if (isParked(cell, tick, robotId)) {
+            return false;
+        }
+        long value = slots.get(index(cell, tick));
+        return value == 0 || tickOf(value) != tick || robotOf(value) == robotId;
+    }
+
+    /**
+     * 判断格子在该时刻是否已被其他机器人预约（不考虑停靠）
+     */
+    public boolean isReserved(int cell, long tick, int robotId) {
+        long value = slots.get(index(cell, tick));
+        return value != 0 && tickOf(value) == tick && robotOf(value) != robotId;
+    }
+
+    /**
+     * 判断格子是否被其他机器人停靠占用（不论从哪个时刻开始）
+     */
+    public boolean isParked(int cell, int robotId) {
+        long value = parked.get(cell);
+        return value != 0 && robotOf(value) != robotId;
+    }
+
+    private boolean isParked(int cell, long tick, int robotId) {
+        long value = parked.get(cell);
+        return value != 0 && robotOf(value) != robotId && tick >= tickOf(value);
+    }
+
+    /**
+     * 登记机器人从某一时刻起停在格子上，直到调用 {@link #unpark} 为止
+     *
+     * @return 格子已被其他机器人停靠时返回false
+     */
+    public boolean park(int cell, long fromTick, int robotId) {
+        long reserved = encode(fromTick, robotId);
+        while (true) {
+            long value = parked.get(cell);
+            if (value != 0 && robotOf(value) != robotId) {
+                return false;
+            }
+            if (parked.compareAndSet(cell, value, reserved)) {
+                return true;
+            }
+        }
+    }
+
+    public void unpark(int cell, int robotId) {
+        long value = parked.get(cell);
+        if (value != 0 && robotOf(value) == robotId) {
+            parked.compareAndSet(cell, value, 0);
+        }
+    }
+
+    /**
+     * 机器人进入格子前调用，登记它实际所在的格子
+     *
+     * @return 格子上已有其他机器人时返回false
+     */
+    public boolean occupy(int cell, int robotId) {
+        int occupant = robotId + 1;
+        return occupants.get(cell) == occupant || occupants.compareAndSet(cell, 0, occupant);
+    }
+
+    /**
+     * 机器人离开格子后调用
+     */
+    public void vacate(int cell, int robotId) {
+        occupants.compareAndSet(cell, robotId + 1, 0);
+    }
+
+    /**
+     * 判断格子上是否有其他机器人
+     */
+    public boolean isOccupied(int cell, int robotId) {
+        int occupant = occupants.get(cell);
+        return occupant != 0 && occupant != robotId + 1;
+    }
+
+    /**
+     * 登记机器人正在等待进入格子，格子上的机器人据此判断自己是否挡了路
+     */
+    public void await(int cell, int robotId) {
+        waiting.set(cell, robotId + 1);
+    }
+
+    /**
+     * 机器人不再等待进入格子
+     */
+    public void stopWaiting(int cell, int robotId) {
+        waiting.compareAndSet(cell, robotId + 1, 0);
+    }
+
+    /**
+     * 判断是否有其他机器人在等待进入格子
+     */
+    public boolean isAwaited(int cell, int robotId) {
+        int waiter = waiting.get(cell);
+        return waiter != 0 && waiter != robotId + 1;
+    }
+
+    /**
+     * 尝试预约格子在某一时刻的占用权
+     *
+     * @return 预约成功或该时刻已属于本机器人时返回true
+     */
+    public boolean tryReserve(int cell, long tick, int robotId) {
+        int index = index(cell, tick);
+        long reserved = encode(tick, robotId);
+        while (true) {
+            long value = slots.get(index);
+            if (value == reserved) {
+                return true;
+            }
+            if (isParked(cell, tick, robotId)) {
+                return false;
+            }
+            if (value != 0 && tickOf(value) == tick) {
+                return false;
+            }
+            if (slots.compareAndSet(index, value, reserved)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(int cell, long tick, int robotId) {
+        slots.compareAndSet(index(cell, tick), encode(tick, robotId), 0);
+    }
+
+    private int index(int cell, long tick) {
+        return (cell << slotShift) | (int) (tick & slotMask);
+    }
+
+    private static long encode(long tick, int robotId) {
+        return ((tick + 1) << ROBOT_BITS) | (robotId & ROBOT_MASK);
+    }
+
+    private static long tickOf(long value) {
+        return (value >>> ROBOT_BITS) - 1;
+    }
+
+    private static int robotOf(long value) {
+        return (int) (value & ROBOT_MASK);
+    }
+}
@@ -0,0 +1,199 @@
+package com.warehouse.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 固定大小的数据库连接池
+ * 连接在第一次需要时才打开，最多 size 个；连接用完后归还，借不到时等待。
+ * 连接出错被丢弃后空出名额，等待中的线程会被唤醒并打开新的连接。
+ * 每个连接缓存自己准备过的语句，同一条SQL在同一连接上只准备一次。
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * 打开新的数据库连接
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int size;
+    // 以下字段都由 all 的锁保护，等待连接的线程也在它上面等待
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final List<PooledConnection> all = new ArrayList<>();
+    private int opened;
+    private boolean closed;
+
+    public ConnectionPool(ConnectionFactory factory, int size) {
+        this.factory = factory;
+        this.size = Math.max(1, size);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 借用一个连接，用完后调用 {@link PooledConnection#close()} 归还
+     */
+    public PooledConnection borrow() throws SQLException {
+        PooledConnection pooled;
+        synchronized (all) {
+            while (true) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                pooled = idle.poll();
+                if (pooled != null || opened < size) {
+                    break;
+                }
+                try {
+                    all.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a connection", e);
+                }
+            }
+            if (pooled == null) {
+                // 先占住名额，在锁外打开连接
+                opened++;
+            }
+        }
+        if (pooled == null) {
+            return open();
+        }
+        if (pooled.connection.isClosed()) {
+            // 连接已被服务器断开：换一个新的
+            pooled.discard();
+            return borrow();
+        }
+        return pooled;
+    }
+
+    private PooledConnection open() throws SQLException {
+        try {
+            PooledConnection pooled = new PooledConnection(factory.open());
+            synchronized (all) {
+                all.add(pooled);
+            }
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            vacate();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        synchronized (all) {
+            if (!closed) {
+                idle.add(pooled);
+                all.notify();
+                return;
+            }
+        }
+        pooled.closeQuietly();
+    }
+
+    private void forget(PooledConnection pooled) {
+        synchronized (all) {
+            if (all.remove(pooled)) {
+                vacate();
+            }
+        }
+    }
+
+    /**
+     * 空出一个连接名额，唤醒一个等待的线程去打开新连接
+     */
+    private void vacate() {
+        synchronized (all) {
+            opened--;
+            all.notify();
+        }
+    }
+
+    /**
+     * 关闭所有连接；正在借出的连接归还时关闭
+     */
+    @Override
+    public void close() {
+        List<PooledConnection> connections;
+        synchronized (all) {
+            closed = true;
+            connections = new ArrayList<>(all);
+            all.clear();
+            idle.clear();
+            opened = 0;
+            all.notifyAll();
+        }
+        for (PooledConnection pooled : connections) {
+            pooled.closeQuietly();
+        }
+    }
+
+    /**
+     * 从连接池借出的连接
+     */
+    public final class PooledConnection implements AutoCloseable {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+        private boolean discarded;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        /**
+         * 该连接上缓存的预编译语句，不要关闭返回的语句
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        /**
+         * 连接出错后不再放回池中，下次借用时重新打开
+         */
+        public void discard() {
+            discarded = true;
+            forget(this);
+            closeQuietly();
+        }
+
+        /**
+         * 归还到连接池
+         */
+        @Override
+        public void close() {
+            if (!discarded) {
+                release(this);
+            }
+        }
+
+        private void closeQuietly() {
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close connection: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -5,43 +5,106 @@ import com.warehouse.model.Product;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.function.Consumer;
 
-public class DatabaseManager {
+public class DatabaseManager implements ProductStore {
+    // 货物以 Product.setUniqueId() 生成的编号为主键，删除和查询都按主键进行
+    static final String INSERT_PRODUCT = "INSERT INTO Products (ProductID, Name, Category, GroupID, LocationX, "
+            + "LocationY, Weight) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    static final String DELETE_PRODUCT = "DELETE FROM Products WHERE ProductID = ?";
+    static final String SELECT_PRODUCT = "SELECT ProductID, Name, Category, GroupID, LocationX, LocationY, Weight "
+            + "FROM Products WHERE ProductID = ?";
+    static final String SELECT_ALL_PRODUCTS = "SELECT ProductID, Name, Category, GroupID, LocationX, LocationY, "
+            + "Weight FROM Products";
+    // Connector/J 只有在 fetchSize 为 Integer.MIN_VALUE 时才逐行流式读取，否则先把整个结果集读入内存；
+    // 不接受负数的驱动（例如内嵌数据库）改用较大的 fetchSize 分批读取
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+    private static final int FALLBACK_FETCH_SIZE = 10000;
+
+    private static final int DEFAULT_POOL_SIZE = 4;
     private static DatabaseManager instance;
-    private Connection connection;
 
     private final String url = "jdbc:mysql://localhost:3306/db01";
     private final String username = "root";
     private final String password = "";
 
+    private final ConnectionPool.ConnectionFactory connectionFactory;
+    private final int poolSize;
+    private volatile ConnectionPool pool;
+
     public DatabaseManager() {
+        this(DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * @param poolSize 最多同时打开的连接数
+     */
+    public DatabaseManager(int poolSize) {
+        this.connectionFactory = this::openMySqlConnection;
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * 使用指定的方式打开连接，例如连接内嵌数据库
+     */
+    public DatabaseManager(ConnectionPool.ConnectionFactory connectionFactory, int poolSize) {
+        this.connectionFactory = connectionFactory;
+        this.poolSize = poolSize;
     }
 
-    public static DatabaseManager getInstance() throws SQLException {
-        if (instance == null || instance.getConnection() == null || instance.getConnection().isClosed()) {
+    public static synchronized DatabaseManager getInstance() throws SQLException {
+        if (instance == null || !instance.isConnected()) {
             instance = new DatabaseManager();
             instance.connect();
         }
         return instance;
     }
 
-    public Connection getConnection() {
-        return connection;
+    public boolean isConnected() {
+        return pool != null;
+    }
+
+    /**
+     * 借用一个连接，用完后关闭即归还连接池
+     */
+    public ConnectionPool.PooledConnection borrowConnection() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            throw new SQLException("Database is not connected");
+        }
+        return current.borrow();
     }
 
     public void connect() throws SQLException {
-        if (connection != null && !connection.isClosed()) {
+        connect(true);
+    }
+
+    /**
+     * @param clearProducts 是否清空货物表；热启动时保留上次的在库货物，之后用 {@link #loadProducts} 读回
+     */
+    public synchronized void connect(boolean clearProducts) throws SQLException {
+        if (pool != null) {
             return;
         }
+        ConnectionPool created = new ConnectionPool(connectionFactory, poolSize);
+        // 先借一个连接确认数据库可用
+        created.borrow().close();
+        pool = created;
+        if (clearProducts) {
+            clearProductsTable();
+        }
+        System.out.println("Database connected successfully (pool size " + created.getSize() + ").");
+    }
+
+    private Connection openMySqlConnection() throws SQLException {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
-            this.connection = DriverManager.getConnection(url, username, password);
-            clearProductsTable();
-            System.out.println("Database connected successfully.");
         } catch (ClassNotFoundException e) {
             throw new SQLException("JDBC Driver not found!", e);
         }
+        return DriverManager.getConnection(url, username, password);
     }
 
     private void clearProductsTable() throws SQLException {
@@ -49,8 +112,12 @@ public class DatabaseManager {
         executeUpdate(query);
     }
 
+    /**
+     * 在连接池中的某个连接上执行更新，同一条SQL复用该连接上已准备好的语句
+     */
     public int executeUpdate(String query, Object... params) throws SQLException {
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (ConnectionPool.PooledConnection connection = borrowConnection()) {
+            PreparedStatement stmt = connection.prepare(query);
             setParameters(stmt, params);
             return stmt.executeUpdate();
         }
@@ -62,32 +129,93 @@ public class DatabaseManager {
         }
     }
 
-    public void closeConnection() {
-        if (connection != null) {
+    public synchronized void closeConnection() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+            System.out.println("Database connection closed.");
+        }
+    }
+
+    @Override
+    public void store(Product product) throws SQLException {
+        addProduct(product);
+    }
+
+    @Override
+    public void remove(Product product) throws SQLException {
+        deleteProduct(requireId(product));
+    }
+
+    public void addProduct(Product product) throws SQLException {
+        executeUpdate(INSERT_PRODUCT, (long) requireId(product), product.getName(), product.getCategory(),
+                product.getGroupId(), product.getLocationX(), product.getLocationY(), product.getWeight());
+        System.out.println("Product added: " + product.getName());
+    }
+
+    public void deleteProduct(int productId) throws SQLException {
+        int rowsAffected = executeUpdate(DELETE_PRODUCT, (long) productId);
+        if (rowsAffected == 0) {
+            System.out.println("No product found with id " + productId + ".");
+        }
+    }
+
+    /**
+     * 按编号查询货物
+     *
+     * @return 货物，不存在时返回null
+     */
+    public Product findProduct(int productId) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = borrowConnection()) {
+            PreparedStatement stmt = connection.prepare(SELECT_PRODUCT);
+            stmt.setLong(1, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? readProduct(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * 逐行读取全部在库货物，每读到一件就交给 consumer，不在内存中保存结果集；
+     * 读完后货物编号生成器推进到已有编号之后
+     *
+     * @return 读取的货物数量
+     */
+    public long loadProducts(Consumer<Product> consumer) throws SQLException {
+        long count = 0;
+        int maxId = 0;
+        try (ConnectionPool.PooledConnection connection = borrowConnection();
+             PreparedStatement stmt = connection.getConnection().prepareStatement(SELECT_ALL_PRODUCTS,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
             try {
-                connection.close();
-                System.out.println("Database connection closed.");
+                stmt.setFetchSize(STREAMING_FETCH_SIZE);
             } catch (SQLException e) {
-                System.err.println("Failed to close connection: " + e.getMessage());
+                stmt.setFetchSize(FALLBACK_FETCH_SIZE);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Product product = readProduct(rs);
+                    maxId = Math.max(maxId, product.getId());
+                    consumer.accept(product);
+                    count++;
+                }
             }
         }
+        Product.advanceIdGenerator(maxId + 1);
+        return count;
     }
 
-    public void addProduct(Product product) throws SQLException {
-        String query = "INSERT INTO Products (Name, Category, GroupID, LocationX, LocationY, Weight) VALUES (?, ?, ?, ?, ?, ?)";
-        executeUpdate(query, product.getName(), product.getCategory(), product.getGroupId(),
-                product.getLocationX(), product.getLocationY(), product.getWeight());
-        System.out.println("Product added: " + product.getName());
+    // 列顺序与 SELECT_PRODUCT、SELECT_ALL_PRODUCTS 一致
+    private static Product readProduct(ResultSet rs) throws SQLException {
+        return new Product((int) rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                rs.getInt(6), rs.getInt(5), 1, rs.getDouble(7));
     }
 
-    public void deleteProduct(String name, String category, int locationX, int locationY) throws SQLException {
-        System.out.println("Deleting product: " + name + ", " + category + ", " + locationX + ", " + locationY);
-        String query = "DELETE FROM Products WHERE Name = ? AND Category = ? AND LocationX = ? AND LocationY = ?";
-        int rowsAffected = executeUpdate(query, name, category, locationX, locationY);
-        if (rowsAffected > 0) {
-            System.out.println("Product deleted successfully.");
-        } else {
-            System.out.println("No product found with the specified criteria.");
+    static int requireId(Product product) throws SQLException {
+        Integer id = product.getId();
+        if (id == null) {
+            throw new SQLException("Product has no id: " + product.getName());
         }
+        return id;
     }
 }
@@ -0,0 +1,393 @@
+package com.warehouse.repository;
+
+import com.warehouse.model.Product;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 本地日志持久化，不需要数据库服务器
+ * 每次入库、出库在内存映射的日志文件末尾追加一条记录；记录数达到间隔后把在库货物写成快照，日志从头开始。
+ * 启动时读取快照再重放日志，得到上次退出（或崩溃）时的在库货物。
+ * <p>
+ * 快照和日志都带有代数：快照写好后代数加一，旧代数的日志记录不再重放；
+ * 每条记录的校验和包含代数，写到一半的记录和上一代的残留内容都会被识别出来。
+ * <p>
+ * 布局改变后放不下的货物不删除，而是记为拒收保存在快照和日志中，之后布局改回来还可以重新上架。
+ */
+public class JournalProductStore implements ProductStore, AutoCloseable {
+    static final String JOURNAL_FILE = "inventory.journal";
+    static final String SNAPSHOT_FILE = "inventory.snapshot";
+
+    private static final int JOURNAL_MAGIC = 0x574A524E;
+    private static final int SNAPSHOT_MAGIC = 0x57534E50;
+    // 日志文件头：魔数、代数
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    // 记录头：长度、校验和
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final long INITIAL_MAPPING_BYTES = 16L << 20;
+
+    private static final byte STORE = 1;
+    private static final byte REMOVE = 2;
+    private static final byte REJECT = 3;
+
+    private final Path directory;
+    private final int snapshotInterval;
+    private final Map<Integer, Product> products = new LinkedHashMap<>();
+    // 拒收的货物：仍属于库存，但当前布局中没有它的货位
+    private final Map<Integer, Product> rejected = new LinkedHashMap<>();
+    private final FileChannel channel;
+    private MappedByteBuffer journal;
+    private long generation;
+    private int recordsSinceSnapshot;
+    private boolean closed;
+
+    private JournalProductStore(Path directory, int snapshotInterval) throws IOException {
+        this.directory = directory;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+        Files.createDirectories(directory);
+        this.channel = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 打开（或新建）日志目录并恢复在库货物；货物编号生成器推进到已有编号之后
+     *
+     * @param snapshotInterval 追加多少条记录后写一次快照
+     */
+    public static JournalProductStore open(Path directory, int snapshotInterval) throws IOException {
+        JournalProductStore store = new JournalProductStore(directory, snapshotInterval);
+        try {
+            store.recover();
+        } catch (IOException | RuntimeException e) {
+            store.channel.close();
+            throw e;
+        }
+        int maxId = 0;
+        for (int id : store.products.keySet()) {
+            maxId = Math.max(maxId, id);
+        }
+        for (int id : store.rejected.keySet()) {
+            maxId = Math.max(maxId, id);
+        }
+        Product.advanceIdGenerator(maxId + 1);
+        return store;
+    }
+
+    private void recover() throws IOException {
+        long started = System.nanoTime();
+        readSnapshot();
+        journal = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAPPING_BYTES, channel.size()));
+        int replayed = 0;
+        if (journal.getInt(0) == JOURNAL_MAGIC && journal.getLong(Integer.BYTES) == generation) {
+            replayed = replayJournal();
+        }
+        if (replayed > 0) {
+            // 重放过的日志合并进新快照，避免下次启动重复重放
+            snapshot();
+        } else {
+            resetJournal();
+        }
+        System.out.println("Inventory journal recovered " + products.size() + " products, " + rejected.size()
+                + " rejected (" + replayed + " journal records) in " + (System.nanoTime() - started) / 1_000_000 + " ms.");
+    }
+
+    private void readSnapshot() throws IOException {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            generation = 0;
+            return;
+        }
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), crc))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not an inventory snapshot: " + file);
+            }
+            generation = in.readLong();
+            readProducts(in, products);
+            readProducts(in, rejected);
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Corrupt inventory snapshot: " + file);
+            }
+        }
+    }
+
+    private static void readProducts(DataInputStream in, Map<Integer, Product> target) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF(),
+                    in.readInt(), in.readInt(), 1, in.readDouble());
+            target.put(product.getId(), product);
+        }
+    }
+
+    /**
+     * 从文件头之后依次重放记录，遇到空白、不完整或校验失败的记录即停止
+     *
+     * @return 重放的记录数
+     */
+    private int replayJournal() {
+        int position = HEADER_BYTES;
+        int replayed = 0;
+        while (position + RECORD_HEADER_BYTES <= journal.capacity()) {
+            int length = journal.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_BYTES + length > journal.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            journal.get(position + RECORD_HEADER_BYTES, payload);
+            if (journal.getInt(position + Integer.BYTES) != checksum(payload)) {
+                break;
+            }
+            apply(payload);
+            position += RECORD_HEADER_BYTES + length;
+            replayed++;
+        }
+        journal.position(position);
+        recordsSinceSnapshot = replayed;
+        return replayed;
+    }
+
+    private void apply(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        byte type = in.get();
+        int id = in.getInt();
+        if (type == STORE) {
+            String name = readString(in);
+            String category = readString(in);
+            String groupId = readString(in);
+            int locationX = in.getInt();
+            int locationY = in.getInt();
+            double weight = in.getDouble();
+            rejected.remove(id);
+            products.put(id, new Product(id, name, category, groupId, locationY, locationX, 1, weight));
+        } else if (type == REMOVE) {
+            products.remove(id);
+            rejected.remove(id);
+        } else if (type == REJECT) {
+            Product product = products.remove(id);
+            if (product != null) {
+                rejected.put(id, product);
+            }
+        }
+    }
+
+    /**
+     * 恢复出的在库货物，按入库顺序排列，不包括拒收的货物
+     */
+    public synchronized Collection<Product> getProducts() {
+        return new ArrayList<>(products.values());
+    }
+
+    /**
+     * 拒收的货物，按拒收顺序排列
+     */
+    public synchronized Collection<Product> getRejected() {
+        return new ArrayList<>(rejected.values());
+    }
+
+    @Override
+    public synchronized void store(Product product) throws SQLException {
+        int id = DatabaseManager.requireId(product);
+        byte[] name = utf8(product.getName());
+        byte[] category = utf8(product.getCategory());
+        byte[] groupId = utf8(product.getGroupId());
+        ByteBuffer payload = ByteBuffer.allocate(1 + Integer.BYTES
+                + 3 * Short.BYTES + name.length + category.length + groupId.length
+                + 2 * Integer.BYTES + Double.BYTES);
+        payload.put(STORE).putInt(id);
+        writeString(payload, name);
+        writeString(payload, category);
+        writeString(payload, groupId);
+        payload.putInt(product.getLocationX()).putInt(product.getLocationY()).putDouble(product.getWeight());
+        append(payload.array());
+        rejected.remove(id);
+        products.put(id, product);
+        snapshotIfDue();
+    }
+
+    @Override
+    public synchronized void remove(Product product) throws SQLException {
+        int id = DatabaseManager.requireId(product);
+        append(ByteBuffer.allocate(1 + Integer.BYTES).put(REMOVE).putInt(id).array());
+        products.remove(id);
+        rejected.remove(id);
+        snapshotIfDue();
+    }
+
+    /**
+     * 货物在当前布局中放不下：不再作为在库货物恢复，但保留在日志中，重新存入即恢复为在库货物
+     */
+    public synchronized void reject(Product product) throws SQLException {
+        int id = DatabaseManager.requireId(product);
+        Product stored = products.get(id);
+        if (stored == null) {
+            return;
+        }
+        append(ByteBuffer.allocate(1 + Integer.BYTES).put(REJECT).putInt(id).array());
+        products.remove(id);
+        rejected.put(id, stored);
+        snapshotIfDue();
+    }
+
+    private void append(byte[] payload) throws SQLException {
+        if (closed) {
+            throw new SQLException("Inventory journal is closed");
+        }
+        try {
+            ensureCapacity(RECORD_HEADER_BYTES + payload.length);
+        } catch (IOException e) {
+            throw new SQLException("Failed to grow inventory journal", e);
+        }
+        int position = journal.position();
+        // 先写内容和校验和，最后写长度：长度不为0的记录才会被重放
+        journal.putInt(position + Integer.BYTES, checksum(payload));
+        journal.put(position + RECORD_HEADER_BYTES, payload);
+        journal.putInt(position, payload.length);
+        journal.position(position + RECORD_HEADER_BYTES + payload.length);
+        recordsSinceSnapshot++;
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        // 留出下一条记录的长度字段，保证记录之后总是可读的
+        long required = (long) journal.position() + bytes + Integer.BYTES;
+        if (required <= journal.capacity()) {
+            return;
+        }
+        long size = journal.capacity();
+        while (size < required) {
+            size *= 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            // 单个映射最大2GB：先写快照再从头写日志
+            snapshot();
+            return;
+        }
+        int position = journal.position();
+        journal.force();
+        journal = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        journal.position(position);
+    }
+
+    private void snapshotIfDue() throws SQLException {
+        if (recordsSinceSnapshot >= snapshotInterval) {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                throw new SQLException("Failed to write inventory snapshot", e);
+            }
+        }
+    }
+
+    /**
+     * 把在库货物写成新一代快照，然后清空日志
+     * 快照先写到临时文件再原子替换，替换前崩溃时旧快照和旧日志仍然完整
+     */
+    public synchronized void snapshot() throws IOException {
+        long next = generation + 1;
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(file)), crc));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(next);
+            writeProducts(out, products.values());
+            writeProducts(out, rejected.values());
+            out.writeLong(crc.getValue());
+            out.flush();
+            file.force(true);
+        }
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        generation = next;
+        resetJournal();
+    }
+
+    private static void writeProducts(DataOutputStream out, Collection<Product> values) throws IOException {
+        out.writeInt(values.size());
+        for (Product product : values) {
+            out.writeInt(product.getId());
+            out.writeUTF(text(product.getName()));
+            out.writeUTF(text(product.getCategory()));
+            out.writeUTF(text(product.getGroupId()));
+            out.writeInt(product.getLocationY());
+            out.writeInt(product.getLocationX());
+            out.writeDouble(product.getWeight());
+        }
+    }
+
+    private void resetJournal() {
+        journal.putInt(0, JOURNAL_MAGIC);
+        journal.putLong(Integer.BYTES, generation);
+        journal.putInt(HEADER_BYTES, 0);
+        journal.position(HEADER_BYTES);
+        journal.force();
+        recordsSinceSnapshot = 0;
+    }
+
+    private int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(generation).array());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static String text(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static byte[] utf8(String value) {
+        return text(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(ByteBuffer buffer, byte[] value) {
+        buffer.putShort((short) value.length).put(value);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写最终快照并关闭日志文件
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            snapshot();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close inventory journal: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.warehouse.repository;
+
+import com.warehouse.model.Product;
+
+import java.sql.SQLException;
+
+/**
+ * 在库货物的持久化
+ */
+public interface ProductStore {
+
+    /**
+     * 货物已放上货架
+     */
+    void store(Product product) throws SQLException;
+
+    /**
+     * 货物已从货架取走
+     */
+    void remove(Product product) throws SQLException;
+}
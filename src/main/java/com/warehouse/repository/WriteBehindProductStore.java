@@ -0,0 +1,423 @@
+package com.warehouse.repository;
+
+import com.warehouse.model.Product;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步批量写库
+ * 机器人线程只把写操作放进有界队列，由单独的写线程按时间间隔或批量大小取出，
+ * 用 addBatch/executeBatch 在一个事务里写入。同一批里先入库后出库的同一件货物（编号相同）互相抵消，不再访问数据库。
+ * 队列满时写操作放进与队列同样大小的溢出列表，调用方不等待；溢出列表不为空时新的写操作也排在它后面，保证写库顺序。
+ * 溢出列表也满时（数据库长时间不可用）调用方等待写线程赶上，内存占用有上限。
+ * 写库失败的批次保留下来，退避后与之后的写操作一起重试；同一批连续失败几次后改为逐条写入，
+ * 违反约束或数据有误的行计入失败后丢弃，不会让一条坏数据卡住之后所有的写操作。关闭时把剩余的操作全部写完。
+ */
+public class WriteBehindProductStore implements ProductStore, AutoCloseable {
+    // 关闭时最后一次写库的尝试次数
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+    private static final int MAX_BACKOFF_STEPS = 50;
+    // 同一批连续写库失败这么多次后逐条写入
+    private static final int ISOLATE_AFTER_FAILURES = 3;
+    // 写线程结束标记
+    private static final Write STOP = new Write(false, 0, null, null, null, 0, 0, 0);
+
+    private final DatabaseManager databaseManager;
+    private final BlockingQueue<Write> queue;
+    private final long flushNanos;
+    private final int batchSize;
+    private final Thread writer;
+    // 保护 closed 和溢出列表：关闭后不会再有写操作入队
+    private final Object lock = new Object();
+    private final ArrayDeque<Write> overflow = new ArrayDeque<>();
+    private final int overflowCapacity;
+    private boolean closed;
+    private volatile boolean overflowReported;
+    private volatile boolean overflowFullReported;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * @param capacity    队列容量，溢出列表容量与之相同
+     * @param flushMillis 第一条写操作入队后最多等待多久写库
+     * @param batchSize   一批最多的写操作数，达到后立即写库
+     */
+    public WriteBehindProductStore(DatabaseManager databaseManager, int capacity, long flushMillis, int batchSize) {
+        this.databaseManager = databaseManager;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.overflowCapacity = Math.max(1, capacity);
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, flushMillis));
+        this.batchSize = Math.max(1, batchSize);
+        this.writer = new Thread(this::runWriter, "ProductStore-Writer");
+    }
+
+    public void start() {
+        writer.start();
+    }
+
+    @Override
+    public void store(Product product) throws SQLException {
+        enqueue(new Write(true, DatabaseManager.requireId(product), product.getName(), product.getCategory(),
+                product.getGroupId(), product.getLocationX(), product.getLocationY(), product.getWeight()));
+    }
+
+    @Override
+    public void remove(Product product) throws SQLException {
+        enqueue(new Write(false, DatabaseManager.requireId(product), null, null, null, 0, 0, 0));
+    }
+
+    private void enqueue(Write write) throws SQLException {
+        synchronized (lock) {
+            // 溢出列表已满：等待写线程把它移回队列
+            while (!closed && overflow.size() >= overflowCapacity) {
+                if (!overflowFullReported) {
+                    overflowFullReported = true;
+                    System.err.println("Product write overflow full; waiting for the database writer.");
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for the product write queue", e);
+                }
+            }
+            if (closed) {
+                throw new SQLException("Product store is closed");
+            }
+            if (overflow.isEmpty() && queue.offer(write)) {
+                return;
+            }
+            if (!overflowReported) {
+                overflowReported = true;
+                System.err.println("Product write queue full; spilling writes until the database writer catches up.");
+            }
+            overflow.add(write);
+        }
+    }
+
+    /**
+     * 把溢出列表中的写操作按顺序移回队列，直到队列再次填满；唤醒等待溢出列表的调用方
+     */
+    private void refill() {
+        synchronized (lock) {
+            boolean moved = false;
+            while (!overflow.isEmpty() && queue.offer(overflow.peek())) {
+                overflow.poll();
+                moved = true;
+            }
+            if (moved) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void runWriter() {
+        // 未写入的写操作，包括上一次写库失败保留下来的
+        List<Write> batch = new ArrayList<>();
+        int failures = 0;
+        try {
+            boolean stopping = false;
+            while (!stopping) {
+                if (failures > 0) {
+                    backOff(failures);
+                }
+                refill();
+                // 保留下来的批次已经够大时不再从队列取，队列满后由溢出列表的上限挡住调用方
+                Write first = batch.isEmpty() ? queue.take() : batch.size() < batchSize ? queue.poll() : null;
+                if (first == STOP) {
+                    break;
+                }
+                if (first != null) {
+                    batch.add(first);
+                    long deadline = System.nanoTime() + flushNanos;
+                    while (batch.size() < batchSize) {
+                        long remaining = deadline - System.nanoTime();
+                        Write next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                        if (next == null) {
+                            break;
+                        }
+                        if (next == STOP) {
+                            stopping = true;
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                }
+                failures = writeBatch(batch) ? 0 : failures + 1;
+                if (failures >= ISOLATE_AFTER_FAILURES && writeRows(batch)) {
+                    failures = 0;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 关闭之前已经接收的操作：队列中的在前，溢出列表中的在后
+        queue.drainTo(batch);
+        batch.remove(STOP);
+        synchronized (lock) {
+            batch.addAll(overflow);
+            overflow.clear();
+        }
+        for (int attempt = 1; !writeBatch(batch); attempt++) {
+            if (attempt == MAX_ATTEMPTS) {
+                if (!writeRows(batch)) {
+                    failed.addAndGet(batch.size());
+                    System.err.println("Could not write " + batch.size() + " product writes before shutdown.");
+                }
+                return;
+            }
+            try {
+                Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 写库失败后等待一段时间再重试，关闭时立即返回
+     */
+    private void backOff(int failures) throws InterruptedException {
+        long millis = RETRY_BACKOFF_MILLIS * Math.min(failures, MAX_BACKOFF_STEPS);
+        synchronized (lock) {
+            if (!closed) {
+                lock.wait(millis);
+            }
+        }
+    }
+
+    /**
+     * 合并并写入一批操作，成功后清空 batch；失败时 batch 中只留下合并后仍需写入的操作
+     *
+     * @return 写入成功或没有需要写入的操作时返回true
+     */
+    private boolean writeBatch(List<Write> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        // 同一件货物在同一批里先入库后出库：两条都不用写
+        List<Write> pending = new ArrayList<>(batch.size());
+        Map<Integer, Integer> insertIndex = new HashMap<>();
+        for (Write write : batch) {
+            if (write.insert) {
+                insertIndex.put(write.productId, pending.size());
+                pending.add(write);
+                continue;
+            }
+            Integer index = insertIndex.remove(write.productId);
+            if (index != null) {
+                pending.set(index, null);
+                coalesced.addAndGet(2);
+            } else {
+                pending.add(write);
+            }
+        }
+        batch.clear();
+        for (Write write : pending) {
+            if (write != null) {
+                batch.add(write);
+            }
+        }
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        try {
+            execute(batch);
+            written.addAndGet(batch.size());
+            batch.clear();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Product batch write failed; keeping " + batch.size() + " writes for retry: "
+                    + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 逐条写入 batch 中的操作，出库删除在前：违反约束或数据有误的行计入失败后丢弃，其余的行照常写入；
+     * 遇到连接断开等其他错误时停止，还没写入的操作留在 batch 中等待重试
+     *
+     * @return batch 中的操作全部处理完时返回true
+     */
+    private boolean writeRows(List<Write> batch) {
+        List<Write> rows = new ArrayList<>(batch.size());
+        for (Write write : batch) {
+            if (!write.insert) {
+                rows.add(write);
+            }
+        }
+        for (Write write : batch) {
+            if (write.insert) {
+                rows.add(write);
+            }
+        }
+        batch.clear();
+        for (int i = 0; i < rows.size(); i++) {
+            Write write = rows.get(i);
+            try {
+                execute(List.of(write));
+                written.incrementAndGet();
+            } catch (SQLException e) {
+                if (!isBadRow(e)) {
+                    batch.addAll(rows.subList(i, rows.size()));
+                    System.err.println("Product row write failed; keeping " + batch.size() + " writes for retry: "
+                            + e.getMessage());
+                    return false;
+                }
+                failed.incrementAndGet();
+                System.err.println("Dropping product " + (write.insert ? "insert" : "delete") + " for product "
+                        + write.productId + ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 违反约束或数据格式有误：重试也不会成功
+     */
+    private static boolean isBadRow(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLIntegrityConstraintViolationException || e instanceof SQLDataException
+                || state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    /**
+     * 一个事务里先执行出库删除再执行入库插入：同一货位先取走旧货物才会放入新货物
+     */
+    private void execute(List<Write> pending) throws SQLException {
+        try (ConnectionPool.PooledConnection pooled = databaseManager.borrowConnection()) {
+            try {
+                execute(pooled, pending);
+            } catch (SQLException e) {
+                // 出错的连接和它缓存的语句不再使用，重试时换一个连接
+                pooled.discard();
+                throw e;
+            }
+        }
+    }
+
+    private static void execute(ConnectionPool.PooledConnection pooled, List<Write> pending) throws SQLException {
+        Connection connection = pooled.getConnection();
+        PreparedStatement insertStatement = pooled.prepare(DatabaseManager.INSERT_PRODUCT);
+        PreparedStatement deleteStatement = pooled.prepare(DatabaseManager.DELETE_PRODUCT);
+        boolean deletes = false;
+        boolean inserts = false;
+        for (Write write : pending) {
+            if (write.insert) {
+                insertStatement.setLong(1, write.productId);
+                insertStatement.setString(2, write.name);
+                insertStatement.setString(3, write.category);
+                insertStatement.setString(4, write.groupId);
+                insertStatement.setInt(5, write.locationX);
+                insertStatement.setInt(6, write.locationY);
+                insertStatement.setDouble(7, write.weight);
+                insertStatement.addBatch();
+                inserts = true;
+            } else {
+                deleteStatement.setLong(1, write.productId);
+                deleteStatement.addBatch();
+                deletes = true;
+            }
+        }
+        connection.setAutoCommit(false);
+        try {
+            if (deletes) {
+                deleteStatement.executeBatch();
+            }
+            if (inserts) {
+                insertStatement.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * 停止接收新的写操作，等待队列中已有的操作全部写入数据库
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // 唤醒正在退避的写线程
+            lock.notifyAll();
+        }
+        try {
+            queue.put(STOP);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("Product store flushed: " + written.get() + " written, " + coalesced.get()
+                + " coalesced, " + failed.get() + " failed.");
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getPending() {
+        synchronized (lock) {
+            return queue.size() + overflow.size();
+        }
+    }
+
+    private static final class Write {
+        final boolean insert;
+        final int productId;
+        final String name;
+        final String category;
+        final String groupId;
+        final int locationX;
+        final int locationY;
+        final double weight;
+
+        Write(boolean insert, int productId, String name, String category, String groupId, int locationX,
+                int locationY, double weight) {
+            this.insert = insert;
+            this.productId = productId;
+            this.name = name;
+            this.category = category;
+            this.groupId = groupId;
+            this.locationX = locationX;
+            this.locationY = locationY;
+            this.weight = weight;
+        }
+    }
+}
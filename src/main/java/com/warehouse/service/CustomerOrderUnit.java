@@ -3,6 +3,8 @@ package com.warehouse.service;
 import com.warehouse.config.ConfigLoader;
 import com.warehouse.model.Product;
 import com.warehouse.model.Task;
+import com.warehouse.simulation.SimulationClock;
+import com.warehouse.simulation.SystemClock;
 
 import java.awt.*;
 import java.util.*;
@@ -18,20 +20,21 @@ public class CustomerOrderUnit implements Runnable {
     private final int maxBatchSize;
     private volatile boolean running;
     private SupplyUnit supplyUnit;
+    private WavePlanner wavePlanner;
     private volatile int speed = 5;
-    private final String configFilePath;
+    private final ConfigLoader configLoader;
+    private SimulationClock clock = SystemClock.INSTANCE;
 
-    public CustomerOrderUnit(Supervisor supervisor) {
-        this(supervisor, "ConfigFile.csv");
-    }
-
-    public CustomerOrderUnit(Supervisor supervisor, String configFilePath) {
+    /**
+     * @param configLoader 柜台数量取自其当前配置快照，配置热更新后立即生效
+     */
+    public CustomerOrderUnit(Supervisor supervisor, ConfigLoader configLoader) {
         this.supervisor = supervisor;
         this.random = new Random();
         this.minBatchSize = 1;
         this.maxBatchSize = 5;
         this.running = true;
-        this.configFilePath = configFilePath;
+        this.configLoader = configLoader;
     }
 
     public int getSpeed() {
@@ -42,30 +45,68 @@ public class CustomerOrderUnit implements Runnable {
         this.speed = speed;
     }
 
+    public void setClock(SimulationClock clock) {
+        this.clock = clock;
+    }
+
     public void setSupplyUnit(SupplyUnit supplyUnit) {
         this.supplyUnit = supplyUnit;
     }
 
+    /**
+     * 订单先经过波次规划合并后再提交给Supervisor
+     */
+    public void setWavePlanner(WavePlanner wavePlanner) {
+        this.wavePlanner = wavePlanner;
+    }
+
+    /**
+     * 按速度定时生成订单；开启波次规划时还在波次到期时醒来释放，不用等到下一个订单
+     */
     @Override
     public void run() {
+        long nextOrderAt = clock.currentTimeMillis() + orderIntervalMillis();
         while (running) {
             try {
-                Thread.sleep(speed * 1000L + 1000);
-                Task request = generateOutgoingRequest();
-                if (request != null) {
-                    supervisor.addRequest(request);
+                long wakeAt = wavePlanner == null ? nextOrderAt : Math.min(nextOrderAt, wavePlanner.getDeadline());
+                long now = clock.currentTimeMillis();
+                if (wakeAt > now) {
+                    clock.sleep(wakeAt - now);
+                    now = clock.currentTimeMillis();
+                }
+                if (now >= nextOrderAt) {
+                    nextOrderAt = now + orderIntervalMillis();
+                    Task request = generateOutgoingRequest();
+                    if (request != null) {
+                        if (wavePlanner == null) {
+                            supervisor.addRequest(request);
+                        } else {
+                            wavePlanner.offer(request, now);
+                        }
+                    }
+                }
+                if (wavePlanner != null) {
+                    wavePlanner.poll(now).forEach(supervisor::addRequest);
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 break;
             }
         }
+        // 停止时未释放的订单已经领取了货位，照常提交
+        if (wavePlanner != null) {
+            wavePlanner.flush().forEach(supervisor::addRequest);
+        }
     }
 
     public void stop() {
         this.running = false;
     }
 
+    private long orderIntervalMillis() {
+        return speed * 1000L + 1000;
+    }
+
     private Task generateOutgoingRequest() {
         int batchSize = minBatchSize;
         List<Product> products = new ArrayList<>();
@@ -78,7 +119,8 @@ public class CustomerOrderUnit implements Runnable {
             products.add(new Product(name, category, "", 0));
         }
 
-        List<Point> points = findProductsInContainer(name, category, batchSize);
+        // 从库存索引领取货位，领取后不会再分给其他订单
+        List<Point> points = supervisor.getWarehouseGrid().getInventoryIndex().claim(name, category, batchSize);
         if (points == null) {
             if (supplyUnit != null) {
                 supplyUnit.incoming(name, category, batchSize);
@@ -91,28 +133,8 @@ public class CustomerOrderUnit implements Runnable {
             products.get(i).setLocationY(points.get(i).y);
         }
 
-        int numberOfOutboundCounters = ConfigLoader.readOutboundCounters(configFilePath);
+        int numberOfOutboundCounters = configLoader.getConfig().getNumberOfOutboundCounters();
         int outgoingCounter = random.nextInt(numberOfOutboundCounters);
         return new Task("OUTBOUND", products, outgoingCounter);
     }
-
-    private List<Point> findProductsInContainer(String name, String category, int requiredQuantity) {
-        List<Point> matchingPoints = new ArrayList<>();
-        int availableQuantity = 0;
-
-        HashMap<Point, Product> productsInContainer = supervisor.getWarehouseGrid().getProductsInContainer();
-        for (Map.Entry<Point, Product> entry : productsInContainer.entrySet()) {
-            Product product = entry.getValue();
-            if (product.getName().equals(name) && product.getCategory().equals(category)) {
-                matchingPoints.add(entry.getKey());
-                availableQuantity++;
-
-                if (availableQuantity >= requiredQuantity) {
-                    return matchingPoints;
-                }
-            }
-        }
-
-        return null;
-    }
 }
@@ -0,0 +1,67 @@
+package com.warehouse.service;
+
+import com.warehouse.repository.DatabaseManager;
+import com.warehouse.view.WarehouseGrid;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 热启动：从数据库加载上次的在库货物
+ * 在后台线程中逐行读取，每读到一件就占用货位、放上货架并登记到库存索引，不缓存整张表。
+ * 加载期间 Supervisor 已经开始工作：出库订单可以使用已经加载的货物，入库请求暂缓到加载完成。
+ * 加载只读数据库：布局改变后放不下的货物只记录日志，数据库中的行保留，布局改回来后下次热启动还能加载。
+ */
+public class InventoryLoader implements Runnable {
+    private static final int MAX_LOGGED_IDS = 20;
+
+    private final DatabaseManager databaseManager;
+    private final Supervisor supervisor;
+
+    public InventoryLoader(DatabaseManager databaseManager, Supervisor supervisor) {
+        this.databaseManager = databaseManager;
+        this.supervisor = supervisor;
+    }
+
+    /**
+     * 在后台线程中开始加载
+     */
+    public void start() {
+        supervisor.setInventoryLoading(true);
+        Thread thread = new Thread(this, "InventoryLoader-Thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        WarehouseGrid grid = supervisor.getWarehouseGrid();
+        // 布局改变后放不下的货物，通常很少，只记录编号用于日志
+        List<Integer> rejected = new ArrayList<>();
+        long started = System.nanoTime();
+        try {
+            long loaded = databaseManager.loadProducts(product -> {
+                if (!grid.restoreProduct(product)) {
+                    rejected.add(product.getId());
+                }
+            });
+            System.out.println("Loaded " + (loaded - rejected.size()) + " products from database in "
+                    + (System.nanoTime() - started) / 1_000_000 + " ms.");
+            if (!rejected.isEmpty()) {
+                System.err.println("Skipped " + rejected.size() + " stored products that no longer fit the layout; "
+                        + "their rows are kept in the database: " + describe(rejected));
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to load inventory: " + e.getMessage());
+        } finally {
+            supervisor.setInventoryLoading(false);
+        }
+    }
+
+    private static String describe(List<Integer> productIds) {
+        int shown = Math.min(productIds.size(), MAX_LOGGED_IDS);
+        String ids = productIds.subList(0, shown).toString();
+        return shown < productIds.size() ? ids + " and " + (productIds.size() - shown) + " more" : ids;
+    }
+}
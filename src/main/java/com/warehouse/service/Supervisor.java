@@ -1,9 +1,19 @@
 package com.warehouse.service;
 
+import com.warehouse.dispatch.DispatchPolicy;
+import com.warehouse.dispatch.LeastBusyPolicy;
+import com.warehouse.dispatch.Trip;
+import com.warehouse.dispatch.TripPlanner;
+import com.warehouse.entity.PathNotFoundException;
 import com.warehouse.entity.Robot;
+import com.warehouse.inventory.SequentialSlotting;
+import com.warehouse.inventory.SlottingStrategy;
 import com.warehouse.model.Product;
 import com.warehouse.model.Task;
-import com.warehouse.repository.DatabaseManager;
+import com.warehouse.repository.ProductStore;
+import com.warehouse.simulation.ExecutionMode;
+import com.warehouse.simulation.SimulationClock;
+import com.warehouse.simulation.SystemClock;
 import com.warehouse.view.LogListener;
 import com.warehouse.view.WarehouseGrid;
 
@@ -12,15 +22,42 @@ import java.sql.SQLException;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Supervisor {
     private WarehouseGrid warehouseGrid;
-    private DatabaseManager databaseManager;
+    private TripPlanner tripPlanner;
+    private ProductStore productStore;
     private LogListener logListener;
     private final List<Robot> robots;
     private final TaskQueue requestQueue;
     private final Map<Robot, TaskQueue> robotTaskQueues;
     private final ExecutorService robotThreadPool;
+    private final Set<Robot> robotWorkers = ConcurrentHashMap.newKeySet();
+    private final SimulationClock clock;
+    private final ExecutionMode executionMode;
+
+    // 暂时无法处理（没有空货位或没有可用机器人）的请求，等到任务完成或机器人重新激活时再放回请求队列
+    private final Queue<Task> deferredRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicLong capacityEvents = new AtomicLong();
+
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicLong failedTasks = new AtomicLong();
+    private final AtomicLong storedProducts = new AtomicLong();
+    private final AtomicLong pickedProducts = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private volatile DispatchPolicy dispatchPolicy = new LeastBusyPolicy();
+    private volatile SlottingStrategy slottingStrategy = new SequentialSlotting();
+    private final AtomicLong outboundDistance = new AtomicLong();
+
+    // 批量分派：窗口为0时逐个分派；否则收集窗口内（最多batchSize个）的任务一起交给分派策略，只由请求处理线程访问
+    private volatile long batchWindowMillis;
+    private volatile int batchSize = 1;
+    private final List<Task> pendingBatch = new ArrayList<>();
+    private long batchDeadline;
+
+    // 启动时正在加载已有库存：暂缓入库请求，新分配的货位可能和还没加载的货物冲突
+    private volatile boolean inventoryLoading;
 
     private Task lastInboundRequest;
     private Task lastOutboundRequest;
@@ -33,21 +70,61 @@ public class Supervisor {
         return warehouseGrid;
     }
 
-    public void setDatabaseManager(DatabaseManager databaseManager) {
-        this.databaseManager = databaseManager;
+    public void setProductStore(ProductStore productStore) {
+        this.productStore = productStore;
     }
 
     public void setLogListener(LogListener logListener) {
         this.logListener = logListener;
     }
 
+    public void setDispatchPolicy(DispatchPolicy dispatchPolicy) {
+        this.dispatchPolicy = dispatchPolicy;
+    }
+
+    public void setSlottingStrategy(SlottingStrategy slottingStrategy) {
+        this.slottingStrategy = slottingStrategy;
+    }
+
+    /**
+     * 标记已有库存是否正在加载，加载完成后重试暂缓的入库请求
+     */
+    public void setInventoryLoading(boolean inventoryLoading) {
+        this.inventoryLoading = inventoryLoading;
+        if (!inventoryLoading) {
+            retryDeferredRequests();
+        }
+    }
+
+    /**
+     * 设置批量分派窗口
+     *
+     * @param windowMillis 第一个任务到达后最多等待的时间，0表示逐个分派
+     * @param maxTasks     一批最多的任务数，达到后立即分派
+     */
+    public void setBatchDispatch(long windowMillis, int maxTasks) {
+        this.batchWindowMillis = windowMillis;
+        this.batchSize = Math.max(1, maxTasks);
+    }
+
     public Supervisor(WarehouseGrid warehouseGrid) {
+        this(warehouseGrid, SystemClock.INSTANCE);
+    }
+
+    public Supervisor(WarehouseGrid warehouseGrid, SimulationClock clock) {
+        this(warehouseGrid, clock, ExecutionMode.PLATFORM);
+    }
+
+    public Supervisor(WarehouseGrid warehouseGrid, SimulationClock clock, ExecutionMode executionMode) {
         this.warehouseGrid = warehouseGrid;
-        this.databaseManager = null;
+        this.tripPlanner = new TripPlanner(warehouseGrid);
+        this.clock = clock;
+        this.executionMode = executionMode;
+        this.productStore = null;
         this.robots = warehouseGrid.getRobots();
         this.requestQueue = new TaskQueue();
         this.robotTaskQueues = new ConcurrentHashMap<>();
-        this.robotThreadPool = Executors.newFixedThreadPool(robots.size() * 2);
+        this.robotThreadPool = executionMode.newExecutor(robots.size());
 
         startRequestProcessor();
         for (Robot robot : robots) {
@@ -57,100 +134,206 @@ public class Supervisor {
         }
     }
 
+    /**
+     * 为机器人启动任务线程，每个机器人只启动一次；
+     * 线程在没有任务或机器人停用时挂起，有任务入队或机器人重新激活时立即被唤醒
+     */
     public void startRobotThread(Robot robot, TaskQueue taskQueue) {
-        robotThreadPool.execute(() -> {
+        if (!robotWorkers.add(robot)) {
+            return;
+        }
+        robotThreadPool.execute(clock.participant(() -> {
             while (true) {
                 try {
-                    if (robot.isRunning() && "inactive".equals(robot.getStatus())) {
-                        Task task = taskQueue.dequeueTask();
-                        if (task != null) {
-                            log("Robot " + robot.getId() + " started task: " + task);
-                            executeRobotTask(robot, task);
-                        } else {
-                            Thread.sleep(100);
-                        }
-                    } else {
-                        Thread.sleep(100);
+                    if (!robot.isRunning()) {
+                        clock.await(robot.whenAvailable());
+                        retryDeferredRequests();
+                        continue;
+                    }
+                    Task task = taskQueue.take(clock);
+                    if (detailLogging()) {
+                        log("Robot " + robot.getId() + " started task: " + task);
                     }
+                    executeRobotTask(robot, task);
+                    dispatchPolicy.onCompleted(robot, task);
+                    retryDeferredRequests();
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     break;
+                } catch (ExecutionException e) {
+                    System.err.println("Robot " + robot.getId() + " activation failed: " + e.getCause());
                 } catch (SQLException e) {
                     System.err.println("Database error: " + e.getMessage());
                 }
             }
-        });
+        }));
     }
 
-    public synchronized void assignTaskToLeastBusyRobot(Task task) {
-        Robot leastBusyRobot = null;
-        int minTaskCount = Integer.MAX_VALUE;
-
-        for (Map.Entry<Robot, TaskQueue> entry : robotTaskQueues.entrySet()) {
-            Robot robot = entry.getKey();
-            TaskQueue taskQueue = entry.getValue();
+    /**
+     * 按分派策略把任务交给一个机器人；开启批量分派时任务先进入当前批次，由 {@link #flushBatch} 统一分派
+     *
+     * @return 没有可用机器人时返回false，由调用方暂缓该请求
+     */
+    public synchronized boolean assignTask(Task task) {
+        if (batchWindowMillis > 0) {
+            if (pendingBatch.isEmpty()) {
+                batchDeadline = clock.currentTimeMillis() + batchWindowMillis;
+            }
+            pendingBatch.add(task);
+            return true;
+        }
+        Robot robot = dispatchPolicy.select(task, robots, robotTaskQueues);
+        if (robot != null) {
+            dispatchPolicy.onAssigned(robot, task);
+            robotTaskQueues.get(robot).enqueueTask(task);
+            if (detailLogging()) {
+                log("Task assigned to robot: " + robot.getName());
+            }
+            return true;
+        }
+        log("No available robot found. Request deferred.");
+        return false;
+    }
 
-            if (robot.isRunning()) {
-                int taskCount = taskQueue.size();
-                if (taskCount < minTaskCount) {
-                    minTaskCount = taskCount;
-                    leastBusyRobot = robot;
+    /**
+     * 分派当前批次，没有分到机器人的任务暂缓
+     *
+     * @return 整批都已分派时返回true
+     */
+    private boolean flushBatch() {
+        Robot[] assigned;
+        List<Task> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(pendingBatch);
+            pendingBatch.clear();
+            assigned = dispatchPolicy.assignBatch(batch, robots, robotTaskQueues);
+        }
+        boolean complete = true;
+        for (int i = 0; i < batch.size(); i++) {
+            Task task = batch.get(i);
+            if (assigned[i] != null) {
+                if (detailLogging()) {
+                    log("Task assigned to robot: " + assigned[i].getName());
                 }
+                continue;
             }
+            complete = false;
+            if ("INBOUND".equals(task.getType())) {
+                // 与逐个分派相同，暂缓期间不占用货位
+                for (Product product : task.getProducts()) {
+                    warehouseGrid.releaseLocation(new Point(product.getLocationX(), product.getLocationY()));
+                }
+            }
+            deferredRequests.add(task);
         }
-
-        if (leastBusyRobot != null) {
-            robotTaskQueues.get(leastBusyRobot).enqueueTask(task);
-            log("Task assigned to robot: " + leastBusyRobot.getName());
-        } else {
-            requestQueue.enqueueTask(task);
-            log("No available robot found. Request requeued.");
+        log("Batch of " + batch.size() + " tasks dispatched");
+        if (!complete) {
+            log("No available robot found. Request deferred.");
         }
+        return complete;
     }
 
+    /**
+     * 按机器人容量把任务拆成若干趟执行，每趟卸完货后登记入库或出库
+     */
     private void executeRobotTask(Robot robot, Task task) throws InterruptedException, SQLException {
-        List<Point> inboundCounters = warehouseGrid.getInboundCounters();
-        List<Point> outboundCounters = warehouseGrid.getOutboundCounters();
-
-        if ("INBOUND".equals(task.getType())) {
-            for (Product product : task.getProducts()) {
-                int sourceIndex = task.getSourceCounterId() - 1;
-                if (sourceIndex >= 0 && sourceIndex < inboundCounters.size()) {
-                    Point source = inboundCounters.get(sourceIndex);
-                    Point target = warehouseGrid.calculateLocation(product.getLocationX(), product.getLocationY());
-
-                    robot.performTask(source.x, source.y, target.x, product.getLocationY());
+        List<Trip> trips = tripPlanner.plan(task, robot.getX(), robot.getY(), robot.getCapacity(),
+                robot.getMaxWeight());
+        boolean inbound = "INBOUND".equals(task.getType());
+        for (int i = 0; i < trips.size(); i++) {
+            Trip trip = trips.get(i);
+            long distanceBefore = robot.getDistanceTravelled();
+            try {
+                robot.performTrip(trip.getPickUps(), trip.getDropOffs());
+            } catch (PathNotFoundException e) {
+                abandonTrips(task, trips.subList(i, trips.size()), e);
+                return;
+            }
+            if (!inbound) {
+                outboundDistance.addAndGet(robot.getDistanceTravelled() - distanceBefore);
+            }
 
-                    if (databaseManager != null) {
-                        databaseManager.addProduct(product);
+            for (Product product : trip.getProducts()) {
+                Point location = new Point(product.getLocationX(), product.getLocationY());
+                if (inbound) {
+                    if (productStore != null) {
+                        productStore.store(product);
+                    }
+                    warehouseGrid.storeProduct(location, product);
+                    storedProducts.incrementAndGet();
+                } else {
+                    // 出库订单里的货物只有名称和货位，按货架上那件货物的编号删除
+                    Product stored = warehouseGrid.takeProduct(location);
+                    warehouseGrid.releaseLocation(location);
+                    pickedProducts.incrementAndGet();
+                    slottingStrategy.onPicked(product);
+
+                    if (productStore != null && stored != null) {
+                        productStore.remove(stored);
                     }
-                    warehouseGrid.getProductsInContainer().put(
-                            new Point(product.getLocationX(), product.getLocationY()), product);
                 }
             }
-        } else if ("OUTBOUND".equals(task.getType())) {
-            for (Product product : task.getProducts()) {
-                int destIndex = task.getDestinationCounterId();
-                if (destIndex >= 0 && destIndex < outboundCounters.size()) {
-                    Point source = warehouseGrid.calculateLocation(product.getLocationX(), product.getLocationY());
-                    Point dest = outboundCounters.get(destIndex);
-
-                    robot.performTask(source.x, product.getLocationY(), dest.x, dest.y);
-
-                    warehouseGrid.getProductsInContainer().remove(
-                            new Point(product.getLocationX(), product.getLocationY()));
+        }
+        completedTasks.incrementAndGet();
+        totalLatencyMillis.addAndGet(clock.currentTimeMillis() - task.getCreatedAtMillis());
+    }
 
-                    if (databaseManager != null) {
-                        databaseManager.deleteProduct(product.getName(), product.getCategory(),
-                                product.getLocationX(), product.getLocationY());
-                    }
+    /**
+     * 任务因取放货点不可达而失败：未完成各趟的入库货位归还，出库货位放回库存索引供其他订单领取
+     */
+    private void abandonTrips(Task task, List<Trip> trips, PathNotFoundException cause) {
+        boolean inbound = "INBOUND".equals(task.getType());
+        int returned = 0;
+        for (Trip trip : trips) {
+            for (Product product : trip.getProducts()) {
+                Point location = new Point(product.getLocationX(), product.getLocationY());
+                if (inbound) {
+                    warehouseGrid.releaseLocation(location);
+                } else {
+                    warehouseGrid.getInventoryIndex().release(product.getName(), product.getCategory(), location);
                 }
+                returned++;
             }
         }
+        failedTasks.incrementAndGet();
+        log(cause.getMessage() + ". Task failed, " + returned + " products not moved: " + task);
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks.get();
+    }
+
+    public long getFailedTasks() {
+        return failedTasks.get();
+    }
+
+    public long getStoredProducts() {
+        return storedProducts.get();
+    }
+
+    public long getPickedProducts() {
+        return pickedProducts.get();
+    }
+
+    /**
+     * 出库运输平均每件行驶的格子数（含出库后去充电的绕行）
+     */
+    public double getOutboundDistancePerPick() {
+        long picked = pickedProducts.get();
+        return picked == 0 ? 0 : (double) outboundDistance.get() / picked;
+    }
+
+    /**
+     * 已完成任务从提交到完成的平均时间（毫秒）
+     */
+    public long getAverageLatencyMillis() {
+        long completed = completedTasks.get();
+        return completed == 0 ? 0 : totalLatencyMillis.get() / completed;
     }
 
     public void setWarehouseGrid(WarehouseGrid warehouseGrid) {
         this.warehouseGrid = warehouseGrid;
+        this.tripPlanner = new TripPlanner(warehouseGrid);
     }
 
     public void addRobot(Robot robot) {
@@ -158,85 +341,122 @@ public class Supervisor {
     }
 
     private void startRequestProcessor() {
-        Thread processorThread = new Thread(() -> {
+        Thread processorThread = executionMode.newThread(clock.participant(() -> {
             while (true) {
-                Task request = requestQueue.dequeueTask();
-                if (request != null) {
-                    try {
-                        processRequest(request);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
+                try {
+                    Task request;
+                    if (pendingBatch.isEmpty()) {
+                        request = requestQueue.take(clock);
+                    } else {
+                        long remaining = batchDeadline - clock.currentTimeMillis();
+                        request = remaining > 0 ? requestQueue.poll(clock, remaining) : null;
                     }
-                } else {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
+                    long seen = capacityEvents.get();
+                    boolean deferred = false;
+                    if (request != null && !processRequest(request)) {
+                        deferredRequests.add(request);
+                        deferred = true;
+                    }
+                    // 窗口到期或批次已满时分派
+                    if (!pendingBatch.isEmpty() && (request == null || pendingBatch.size() >= batchSize)) {
+                        deferred |= !flushBatch();
                     }
+                    // 处理期间已经有货位或机器人空出来，立即重试，避免错过唤醒
+                    if (deferred && capacityEvents.get() != seen) {
+                        retryDeferredRequests();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 }
             }
-        });
-        processorThread.setDaemon(true);
+        }), "RequestProcessor-Thread");
         processorThread.start();
     }
 
+    /**
+     * 任务完成或机器人重新激活后调用，把暂缓的请求放回请求队列
+     */
+    private void retryDeferredRequests() {
+        capacityEvents.incrementAndGet();
+        Task request;
+        while ((request = deferredRequests.poll()) != null) {
+            requestQueue.enqueueTask(request);
+        }
+    }
+
     public synchronized void addRequest(Task request) {
+        // 经过波次合并的任务沿用最早订单的时刻
+        if (request.getCreatedAtMillis() == 0) {
+            request.setCreatedAtMillis(clock.currentTimeMillis());
+        }
         requestQueue.enqueueTask(request);
-        log("New request added: " + request.getType() + " " + request);
+        if (detailLogging()) {
+            log("New request added: " + request.getType() + " " + request);
+        }
     }
 
-    private void processRequest(Task request) throws InterruptedException {
+    /**
+     * @return 请求暂时无法处理时返回false
+     */
+    private boolean processRequest(Task request) throws InterruptedException {
         switch (request.getType()) {
             case "INBOUND":
-                handleIncomingRequest(request);
-                break;
+                return handleIncomingRequest(request);
             case "OUTBOUND":
-                handleCustomerOrderRequest(request);
-                break;
+                return handleCustomerOrderRequest(request);
             default:
                 log("Unknown request type: " + request.getType());
+                return true;
         }
     }
 
-    private void handleIncomingRequest(Task request) throws InterruptedException {
+    private boolean handleIncomingRequest(Task request) throws InterruptedException {
         if (lastInboundRequest != request) {
             log("Assigning incoming request: " + request.getType() + " " + request);
         }
         lastInboundRequest = request;
+        if (inventoryLoading) {
+            log("Inventory still loading. Request deferred.");
+            return false;
+        }
 
         ArrayList<Product> products = new ArrayList<>(request.getProducts());
-        if (!warehouseGrid.hasEnoughSpace(products.size())) {
-            requestQueue.enqueueTask(request);
-            log("No shelves available. Request requeued.");
-            return;
+        // 整批一次分配货位，不足时一个也不占用
+        List<Point> locations = slottingStrategy.assignLocations(warehouseGrid, products);
+        if (locations == null) {
+            log("No shelves available. Request deferred.");
+            return false;
         }
 
-        for (Product product : products) {
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            Point location = locations.get(i);
             product.setUniqueId();
-            Point location = warehouseGrid.assignLocation();
-            if (location != null) {
-                product.setLocationY(location.y);
-                product.setLocationX(location.x);
+            product.setLocationY(location.y);
+            product.setLocationX(location.x);
+            if (detailLogging()) {
                 log("Product stored: " + product.getName());
-            } else {
-                requestQueue.enqueueTask(request);
-                log("No shelves available. Request requeued.");
-                return;
             }
         }
         request.setProducts(products);
-        assignTaskToLeastBusyRobot(request);
+        if (!assignTask(request)) {
+            // 暂缓期间不占用货位，重试时重新分配
+            for (Point location : locations) {
+                warehouseGrid.releaseLocation(location);
+            }
+            return false;
+        }
+        return true;
     }
 
-    private void handleCustomerOrderRequest(Task request) {
+    private boolean handleCustomerOrderRequest(Task request) {
         if (lastOutboundRequest != request) {
             Product firstProduct = request.getProducts().get(0);
             log("Assigning outgoing request: " + firstProduct.getName() + ":" + firstProduct.getCategory());
         }
         lastOutboundRequest = request;
-        assignTaskToLeastBusyRobot(request);
+        return assignTask(request);
     }
 
     public Point calculateLocation(int x, int y) {
@@ -249,6 +469,12 @@ public class Supervisor {
         }
     }
 
+    // 逐个请求、逐件货物的日志只在需要明细时拼接
+    private boolean detailLogging() {
+        LogListener listener = logListener;
+        return listener != null && listener.isDetailEnabled();
+    }
+
     public void shutdown() {
         robotThreadPool.shutdown();
         try {
@@ -3,6 +3,8 @@ package com.warehouse.service;
 import com.warehouse.config.ConfigLoader;
 import com.warehouse.model.Product;
 import com.warehouse.model.Task;
+import com.warehouse.simulation.SimulationClock;
+import com.warehouse.simulation.SystemClock;
 
 import java.util.*;
 
@@ -16,19 +18,19 @@ public class SupplyUnit implements Runnable {
     private final int maxBatchSize;
     private volatile boolean running;
     private volatile int speed = 5;
-    private final String configFilePath;
+    private final ConfigLoader configLoader;
+    private SimulationClock clock = SystemClock.INSTANCE;
 
-    public SupplyUnit(Supervisor supervisor) {
-        this(supervisor, "ConfigFile.csv");
-    }
-
-    public SupplyUnit(Supervisor supervisor, String configFilePath) {
+    /**
+     * @param configLoader 柜台数量取自其当前配置快照，配置热更新后立即生效
+     */
+    public SupplyUnit(Supervisor supervisor, ConfigLoader configLoader) {
         this.supervisor = supervisor;
         this.random = new Random();
         this.minBatchSize = 1;
         this.maxBatchSize = 5;
         this.running = true;
-        this.configFilePath = configFilePath;
+        this.configLoader = configLoader;
     }
 
     public int getSpeed() {
@@ -39,11 +41,15 @@ public class SupplyUnit implements Runnable {
         this.speed = speed;
     }
 
+    public void setClock(SimulationClock clock) {
+        this.clock = clock;
+    }
+
     @Override
     public void run() {
         while (running) {
             try {
-                Thread.sleep(speed * 1000L + 1000);
+                clock.sleep(speed * 1000L + 1000);
                 Task request = generateIncomingRequest();
                 supervisor.addRequest(request);
             } catch (InterruptedException e) {
@@ -70,7 +76,7 @@ public class SupplyUnit implements Runnable {
             products.add(new Product(name, category, groupId, weight));
         }
 
-        int numberOfInboundCounters = ConfigLoader.readInboundCounters(configFilePath);
+        int numberOfInboundCounters = configLoader.getConfig().getNumberOfInboundCounters();
         int incomingCounter = random.nextInt(numberOfInboundCounters) + 1;
         return new Task("INBOUND", products, incomingCounter);
     }
@@ -84,7 +90,7 @@ public class SupplyUnit implements Runnable {
             products.add(new Product(name, category, groupId, weight));
         }
 
-        int numberOfInboundCounters = ConfigLoader.readInboundCounters(configFilePath);
+        int numberOfInboundCounters = configLoader.getConfig().getNumberOfInboundCounters();
         int incomingCounter = random.nextInt(numberOfInboundCounters) + 1;
         return new Task("INBOUND", products, incomingCounter);
     }
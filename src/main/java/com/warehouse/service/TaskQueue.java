@@ -1,28 +1,116 @@
 package com.warehouse.service;
 
 import com.warehouse.model.Task;
-import java.util.concurrent.LinkedBlockingQueue;
+import com.warehouse.simulation.SimulationClock;
 
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 任务队列
+ * 消费者没有任务时挂起等待，入队时直接把任务交给最早等待的消费者，不经过轮询。
+ * 等待经过仿真时钟，虚拟时钟下同样适用。
+ */
 public class TaskQueue {
-    private final LinkedBlockingQueue<Task> queue;
+    private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+    private final ArrayDeque<CompletableFuture<Task>> waiters = new ArrayDeque<>();
 
-    public TaskQueue() {
-        this.queue = new LinkedBlockingQueue<>();
+    public void enqueueTask(Task task) {
+        while (true) {
+            CompletableFuture<Task> waiter;
+            synchronized (this) {
+                waiter = waiters.poll();
+                if (waiter == null) {
+                    tasks.add(task);
+                    return;
+                }
+            }
+            // 在锁外完成，唤醒的消费者不会和生产者争锁；已取消的等待者跳过
+            if (waiter.complete(task)) {
+                return;
+            }
+        }
     }
 
-    public void enqueueTask(Task task) {
-        queue.offer(task);
+    public synchronized Task dequeueTask() {
+        return tasks.poll();
+    }
+
+    /**
+     * 返回下一个任务的future，队列非空时立即完成，否则在下一个任务入队时完成
+     */
+    public synchronized CompletableFuture<Task> nextTask() {
+        Task task = tasks.poll();
+        if (task != null) {
+            return CompletableFuture.completedFuture(task);
+        }
+        CompletableFuture<Task> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        return waiter;
+    }
+
+    /**
+     * 阻塞直到取得一个任务
+     */
+    public Task take(SimulationClock clock) throws InterruptedException {
+        CompletableFuture<Task> next = nextTask();
+        try {
+            return clock.await(next);
+        } catch (InterruptedException e) {
+            // 取消失败说明任务已经交过来了，放回队首，不能丢失
+            if (!next.cancel(false)) {
+                requeueFirst(next.join());
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Task hand-off failed", e.getCause());
+        }
+    }
+
+    /**
+     * 最多等待给定时间取得一个任务
+     *
+     * @return 超时时返回null
+     */
+    public Task poll(SimulationClock clock, long timeoutMillis) throws InterruptedException {
+        CompletableFuture<Task> next = nextTask();
+        try {
+            return clock.await(next, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 超时的同时任务可能已经交过来了，此时照常返回
+            return next.cancel(false) ? null : next.join();
+        } catch (InterruptedException e) {
+            if (!next.cancel(false)) {
+                requeueFirst(next.join());
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Task hand-off failed", e.getCause());
+        }
     }
 
-    public Task dequeueTask() {
-        return queue.poll();
+    private void requeueFirst(Task task) {
+        CompletableFuture<Task> waiter;
+        synchronized (this) {
+            waiter = waiters.poll();
+            if (waiter == null) {
+                tasks.addFirst(task);
+                return;
+            }
+        }
+        if (!waiter.complete(task)) {
+            enqueueTask(task);
+        }
     }
 
-    public int size() {
-        return queue.size();
+    public synchronized int size() {
+        return tasks.size();
     }
 
-    public boolean isEmpty() {
-        return queue.isEmpty();
+    public synchronized boolean isEmpty() {
+        return tasks.isEmpty();
     }
 }
@@ -0,0 +1,160 @@
+package com.warehouse.service;
+
+import com.warehouse.entity.Robot;
+import com.warehouse.model.Product;
+import com.warehouse.model.Task;
+import com.warehouse.pathfinding.DistanceFieldCache;
+import com.warehouse.view.WarehouseGrid;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 出库波次规划
+ * 订单先进入当前波次，窗口到期或订单数达到上限时整批释放：按出库柜台分组，
+ * 同一柜台的货物按货位远近聚合成不超过 maxItems 件的拣货任务，再交给Supervisor。
+ * 窗口为0时不做合并，订单原样释放。
+ */
+public class WavePlanner {
+    private final WarehouseGrid grid;
+    private final long windowMillis;
+    private final int maxOrders;
+    private final int maxItems;
+    private final List<Task> wave = new ArrayList<>();
+    private long waveDeadline;
+
+    /**
+     * @param windowMillis 波次从第一个订单起最多等待的时间，0表示不合并
+     * @param maxOrders    一个波次最多的订单数，达到后立即释放
+     * @param maxItems     每个合并任务最多的件数，不大于0时取机器人的最大容量
+     */
+    public WavePlanner(WarehouseGrid grid, long windowMillis, int maxOrders, int maxItems) {
+        this.grid = grid;
+        this.windowMillis = windowMillis;
+        this.maxOrders = Math.max(1, maxOrders);
+        this.maxItems = maxItems > 0 ? maxItems : largestCapacity(grid.getRobots());
+    }
+
+    private static int largestCapacity(List<Robot> robots) {
+        int capacity = 1;
+        for (Robot robot : robots) {
+            capacity = Math.max(capacity, robot.getCapacity());
+        }
+        return capacity;
+    }
+
+    /**
+     * 订单进入当前波次
+     *
+     * @param now 仿真时钟毫秒
+     */
+    public synchronized void offer(Task order, long now) {
+        if (wave.isEmpty()) {
+            waveDeadline = now + windowMillis;
+        }
+        if (order.getCreatedAtMillis() == 0) {
+            order.setCreatedAtMillis(now);
+        }
+        wave.add(order);
+    }
+
+    /**
+     * 当前波次到期的时刻（仿真时钟毫秒），没有等待中的订单时返回 Long.MAX_VALUE
+     */
+    public synchronized long getDeadline() {
+        return wave.isEmpty() ? Long.MAX_VALUE : waveDeadline;
+    }
+
+    /**
+     * 波次到期或已满时释放合并后的拣货任务
+     *
+     * @return 需要提交的任务，波次未到期时为空
+     */
+    public synchronized List<Task> poll(long now) {
+        if (wave.isEmpty() || (windowMillis > 0 && wave.size() < maxOrders && now < waveDeadline)) {
+            return Collections.emptyList();
+        }
+        return flush();
+    }
+
+    /**
+     * 立即释放当前波次
+     */
+    public synchronized List<Task> flush() {
+        List<Task> orders = new ArrayList<>(wave);
+        wave.clear();
+        if (windowMillis <= 0) {
+            return orders;
+        }
+
+        Map<Integer, List<Task>> byCounter = new LinkedHashMap<>();
+        for (Task order : orders) {
+            byCounter.computeIfAbsent(order.getDestinationCounterId(), key -> new ArrayList<>()).add(order);
+        }
+        List<Task> tasks = new ArrayList<>();
+        for (Map.Entry<Integer, List<Task>> entry : byCounter.entrySet()) {
+            consolidate(entry.getKey(), entry.getValue(), tasks);
+        }
+        return tasks;
+    }
+
+    /**
+     * 把同一柜台的货物聚合成若干任务：从离柜台最远的货位开始，依次加入离上一个货位最近的货物
+     */
+    private void consolidate(int counterId, List<Task> orders, List<Task> tasks) {
+        List<Product> remaining = new ArrayList<>();
+        long createdAt = Long.MAX_VALUE;
+        for (Task order : orders) {
+            remaining.addAll(order.getProducts());
+            createdAt = Math.min(createdAt, order.getCreatedAtMillis());
+        }
+        List<Point> counters = grid.getOutboundCounters();
+        Point counter = counterId >= 0 && counterId < counters.size() ? counters.get(counterId) : null;
+
+        while (!remaining.isEmpty()) {
+            int seed = 0;
+            if (counter != null) {
+                int farthest = -1;
+                for (int i = 0; i < remaining.size(); i++) {
+                    int d = distance(counter, location(remaining.get(i)));
+                    if (d > farthest) {
+                        farthest = d;
+                        seed = i;
+                    }
+                }
+            }
+            List<Product> group = new ArrayList<>();
+            Point current = location(remaining.get(seed));
+            group.add(remaining.remove(seed));
+            while (group.size() < maxItems && !remaining.isEmpty()) {
+                int nearest = 0;
+                int nearestDistance = Integer.MAX_VALUE;
+                for (int i = 0; i < remaining.size(); i++) {
+                    int d = distance(current, location(remaining.get(i)));
+                    if (d < nearestDistance) {
+                        nearestDistance = d;
+                        nearest = i;
+                    }
+                }
+                current = location(remaining.get(nearest));
+                group.add(remaining.remove(nearest));
+            }
+            Task task = new Task("OUTBOUND", group, counterId);
+            task.setCreatedAtMillis(createdAt);
+            tasks.add(task);
+        }
+    }
+
+    private Point location(Product product) {
+        return grid.calculateLocation(product.getLocationX(), product.getLocationY());
+    }
+
+    private int distance(Point from, Point to) {
+        DistanceFieldCache distances = grid.getDistanceFields();
+        return distances.estimate(from.x, from.y, to.x, to.y);
+    }
+}
@@ -0,0 +1,91 @@
+package com.warehouse.simulation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 阻塞任务线程（机器人任务线程、请求处理线程、供需单元）的运行方式
+ * PLATFORM 使用普通平台线程；VIRTUAL 使用虚拟线程，机器人和订单来源很多时不受平台线程内存和调度开销限制。
+ * 项目以Java 17编译，虚拟线程通过反射创建，运行在Java 21以下时自动退回平台线程。
+ */
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL;
+
+    private static final ThreadFactory VIRTUAL_FACTORY = lookupVirtualFactory();
+    private static final Method PER_TASK_EXECUTOR = lookupPerTaskExecutor();
+
+    public static ExecutionMode fromName(String name) {
+        switch (name.toLowerCase()) {
+            case "platform":
+                return PLATFORM;
+            case "virtual":
+                return VIRTUAL;
+            default:
+                throw new IllegalArgumentException("Unsupported execution mode: " + name);
+        }
+    }
+
+    /**
+     * 当前运行环境是否支持虚拟线程
+     */
+    public static boolean isVirtualSupported() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    /**
+     * 实际生效的模式，不支持虚拟线程时为 PLATFORM
+     */
+    public ExecutionMode effective() {
+        return this == VIRTUAL && !isVirtualSupported() ? PLATFORM : this;
+    }
+
+    /**
+     * 创建（未启动的）线程
+     */
+    public Thread newThread(Runnable task, String name) {
+        Thread thread;
+        if (effective() == VIRTUAL) {
+            thread = VIRTUAL_FACTORY.newThread(task);
+        } else {
+            thread = new Thread(task);
+            thread.setDaemon(true);
+        }
+        thread.setName(name);
+        return thread;
+    }
+
+    /**
+     * 创建执行器：平台线程模式为固定大小线程池，虚拟线程模式每个任务一个虚拟线程
+     */
+    public ExecutorService newExecutor(int platformThreads) {
+        if (effective() == VIRTUAL) {
+            try {
+                return (ExecutorService) PER_TASK_EXECUTOR.invoke(null, VIRTUAL_FACTORY);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to create virtual thread executor", e);
+            }
+        }
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads));
+    }
+
+    private static Method lookupPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory lookupVirtualFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.warehouse.simulation;
+
+import com.warehouse.model.Task;
+import com.warehouse.service.TaskQueue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比较两种运行方式下大量阻塞任务线程的开销
+ * 每个模拟机器人一个任务线程：取任务、等待取放货时间，循环若干次；
+ * 若干订单来源线程轮流向各机器人的任务队列投递任务。输出耗时、吞吐量和平台线程峰值。
+ * 参数：[机器人数量] [每个机器人的任务数] [每个任务的等待毫秒] [订单来源数量]
+ */
+public class ExecutionModeBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int robots = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int tasksPerRobot = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int taskMillis = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int sources = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+
+        System.out.println("Robots: " + robots + ", tasks per robot: " + tasksPerRobot
+                + ", task time: " + taskMillis + " ms, order sources: " + sources);
+        if (!ExecutionMode.isVirtualSupported()) {
+            System.out.println("Virtual threads are not available on Java "
+                    + Runtime.version().feature() + ", VIRTUAL runs on platform threads.");
+        }
+        // 先各跑一轮预热
+        run(ExecutionMode.PLATFORM, Math.min(robots, 100), tasksPerRobot, taskMillis, sources, false);
+        run(ExecutionMode.VIRTUAL, Math.min(robots, 100), tasksPerRobot, taskMillis, sources, false);
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            run(mode, robots, tasksPerRobot, taskMillis, sources, true);
+        }
+        System.exit(0);
+    }
+
+    private static void run(ExecutionMode mode, int robots, int tasksPerRobot, int taskMillis, int sources,
+            boolean report) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        SimulationClock clock = SystemClock.INSTANCE;
+        TaskQueue[] queues = new TaskQueue[robots];
+        for (int i = 0; i < robots; i++) {
+            queues[i] = new TaskQueue();
+        }
+        CountDownLatch finished = new CountDownLatch(robots);
+
+        long start = System.nanoTime();
+        ExecutorService pool = mode.newExecutor(robots);
+        for (int i = 0; i < robots; i++) {
+            TaskQueue queue = queues[i];
+            pool.execute(() -> {
+                try {
+                    for (int k = 0; k < tasksPerRobot; k++) {
+                        queue.take(clock);
+                        clock.sleep(taskMillis);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+            });
+        }
+        for (int s = 0; s < sources; s++) {
+            int source = s;
+            mode.newThread(() -> {
+                for (int k = 0; k < tasksPerRobot; k++) {
+                    for (int i = source; i < robots; i += sources) {
+                        queues[i].enqueueTask(new Task("OUTBOUND", new ArrayList<>(), 0));
+                    }
+                }
+            }, "OrderSource-" + s).start();
+        }
+        finished.await();
+        long elapsed = System.nanoTime() - start;
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+
+        if (report) {
+            long tasks = (long) robots * tasksPerRobot;
+            double seconds = elapsed / 1e9;
+            System.out.printf("%-8s %8d ms  %10.0f tasks/s  peak platform threads %d%n",
+                    mode.effective(), TimeUnit.NANOSECONDS.toMillis(elapsed), tasks / seconds,
+                    threads.getPeakThreadCount());
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.warehouse.simulation;
+
+import com.warehouse.entity.Robot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 机器人移动调度器
+ * 用一个线程推进所有机器人的移动：按下一步时间（相同时按注册顺序）排成小顶堆，
+ * 每次取出所有到期的机器人依次走一步，再按各自的步长重新入堆。
+ * 只有正在移动的机器人在堆中，空闲机器人不会被轮询；调用 moveTo 时由机器人自己重新入堆。
+ * 等待下一步时经过仿真时钟，虚拟时钟下可以直接跳到下一步的时间。
+ */
+public class MovementScheduler {
+    private final SimulationClock clock;
+    private final List<Robot> robots = new ArrayList<>();
+    private long[] nextMoveAt = new long[16];
+    private boolean[] queued = new boolean[16];
+    private int[] heap = new int[16];
+    private int heapSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private CompletableFuture<Void> wakeup;
+    private volatile boolean running;
+    private Thread thread;
+
+    public MovementScheduler() {
+        this(SystemClock.INSTANCE);
+    }
+
+    public MovementScheduler(SimulationClock clock) {
+        this.clock = clock;
+    }
+
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * 登记机器人，之后机器人的移动都由本调度器推进
+     */
+    public void attach(List<Robot> fleet) {
+        lock.lock();
+        try {
+            for (Robot robot : fleet) {
+                int slot = robots.size();
+                robots.add(robot);
+                if (slot == nextMoveAt.length) {
+                    nextMoveAt = Arrays.copyOf(nextMoveAt, slot * 2);
+                    queued = Arrays.copyOf(queued, slot * 2);
+                    heap = Arrays.copyOf(heap, slot * 2);
+                }
+                robot.setScheduler(this, slot);
+                robot.setClock(clock);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(clock.participant(this::runLoop), "MovementScheduler-Thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * 机器人有了新路径时调用，若尚未在堆中则在一个步长之后安排第一步
+     */
+    public void schedule(int slot) {
+        lock.lock();
+        try {
+            if (!queued[slot]) {
+                queued[slot] = true;
+                nextMoveAt[slot] = clock.nanoTime() + stepNanos(robots.get(slot));
+                push(slot);
+                if (wakeup != null) {
+                    wakeup.complete(null);
+                    wakeup = null;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runLoop() {
+        int[] due = new int[16];
+        while (running) {
+            int count = 0;
+            CompletableFuture<Void> signal = null;
+            long wait = -1;
+            lock.lock();
+            try {
+                long now = clock.nanoTime();
+                if (heapSize == 0 || nextMoveAt[heap[0]] > now) {
+                    signal = wakeup = new CompletableFuture<>();
+                    if (heapSize > 0) {
+                        wait = nextMoveAt[heap[0]] - now;
+                    }
+                } else {
+                    while (heapSize > 0 && nextMoveAt[heap[0]] <= now) {
+                        if (count == due.length) {
+                            due = Arrays.copyOf(due, count * 2);
+                        }
+                        due[count++] = pop();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (signal != null) {
+                try {
+                    if (wait < 0) {
+                        clock.await(signal);
+                    } else {
+                        clock.await(signal, wait, TimeUnit.NANOSECONDS);
+                    }
+                } catch (TimeoutException | ExecutionException e) {
+                    // 到达下一步时间或被新路径唤醒，重新检查堆顶
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                continue;
+            }
+
+            for (int i = 0; i < count; i++) {
+                advance(due[i]);
+            }
+        }
+    }
+
+    private void advance(int slot) {
+        Robot robot = robots.get(slot);
+        boolean pending = robot.isRunning() && robot.moveStep();
+        lock.lock();
+        try {
+            // 重新检查一次：机器人可能在这一步之后、加锁之前拿到了新路径
+            if (pending || (robot.isRunning() && robot.hasPendingSteps())) {
+                // 以上一次的计划时间为基准，保持固定步频
+                nextMoveAt[slot] += stepNanos(robot);
+                push(slot);
+            } else {
+                queued[slot] = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long stepNanos(Robot robot) {
+        return TimeUnit.MILLISECONDS.toNanos(robot.getStepMillis());
+    }
+
+    // ---------- 按 (下一步时间, 注册顺序) 排序的小顶堆 ----------
+
+    private boolean before(int a, int b) {
+        return nextMoveAt[a] < nextMoveAt[b] || (nextMoveAt[a] == nextMoveAt[b] && a < b);
+    }
+
+    private void push(int slot) {
+        int pos = heapSize++;
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!before(slot, heap[parent])) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = slot;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        int pos = 0;
+        int half = heapSize >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], last)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = last;
+        return top;
+    }
+}
@@ -0,0 +1,42 @@
+package com.warehouse.simulation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 仿真时钟
+ * 机器人、调度器和供需单元中所有的延时和等待都经过时钟，
+ * 界面模式使用真实时间（{@link SystemClock}），无界面仿真使用离散事件虚拟时间（{@link VirtualClock}）。
+ */
+public interface SimulationClock {
+
+    /**
+     * 当前时间（纳秒），只用于计算时间差
+     */
+    long nanoTime();
+
+    default long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanoTime());
+    }
+
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * 等待 future 完成并返回结果
+     */
+    <T> T await(CompletableFuture<T> future) throws InterruptedException, ExecutionException;
+
+    /**
+     * 最多等待给定时间，超时抛出 TimeoutException
+     */
+    <T> T await(CompletableFuture<T> future, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException;
+
+    /**
+     * 包装一个参与仿真的线程任务。虚拟时钟只有在所有参与线程都在等待时才会推进时间，
+     * 因此调用 sleep/await 的线程都必须通过这里启动。
+     */
+    Runnable participant(Runnable task);
+}
@@ -0,0 +1,196 @@
+package com.warehouse.simulation;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 离散事件虚拟时钟
+ * 记录正在运行的参与线程数，所有参与线程都进入 sleep/await 后，
+ * 直接把时间跳到最早的到期事件并唤醒对应线程，不做真实等待。
+ * 一个完整班次的仿真因此只取决于事件数量，而不是仿真时长。
+ */
+public final class VirtualClock implements SimulationClock {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> timers = new PriorityQueue<>(
+            Comparator.comparingLong((Waiter w) -> w.wakeAt).thenComparingLong(w -> w.sequence));
+    private volatile long now;
+    private int busy;
+    private long sequence;
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    /**
+     * 把当前线程登记为参与线程
+     */
+    public void enter() {
+        lock.lock();
+        try {
+            busy++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前参与线程结束
+     */
+    public void exit() {
+        lock.lock();
+        try {
+            busy--;
+            advanceIfIdle();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable participant(Runnable task) {
+        enter();
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                exit();
+            }
+        };
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        lock.lock();
+        try {
+            Waiter waiter = new Waiter(lock.newCondition());
+            schedule(waiter, now + TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis)));
+            park(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public <T> T await(CompletableFuture<T> future) throws InterruptedException, ExecutionException {
+        if (!future.isDone()) {
+            Waiter waiter = new Waiter(lock.newCondition());
+            future.whenComplete((result, error) -> wake(waiter));
+            lock.lock();
+            try {
+                park(waiter);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return future.get();
+    }
+
+    @Override
+    public <T> T await(CompletableFuture<T> future, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!future.isDone()) {
+            Waiter waiter = new Waiter(lock.newCondition());
+            future.whenComplete((result, error) -> wake(waiter));
+            lock.lock();
+            try {
+                if (!waiter.woken) {
+                    schedule(waiter, now + unit.toNanos(Math.max(0, timeout)));
+                }
+                park(waiter);
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (!future.isDone()) {
+            throw new TimeoutException();
+        }
+        return future.get();
+    }
+
+    private void schedule(Waiter waiter, long wakeAt) {
+        waiter.wakeAt = wakeAt;
+        waiter.sequence = sequence++;
+        timers.add(waiter);
+    }
+
+    private void park(Waiter waiter) throws InterruptedException {
+        if (waiter.woken) {
+            return;
+        }
+        waiter.parked = true;
+        busy--;
+        advanceIfIdle();
+        try {
+            while (!waiter.woken) {
+                waiter.condition.await();
+            }
+        } catch (InterruptedException e) {
+            if (!waiter.woken) {
+                waiter.woken = true;
+                busy++;
+            }
+            throw e;
+        }
+    }
+
+    private void wake(Waiter waiter) {
+        lock.lock();
+        try {
+            wakeLocked(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void wakeLocked(Waiter waiter) {
+        if (waiter.woken) {
+            return;
+        }
+        waiter.woken = true;
+        if (waiter.parked) {
+            busy++;
+            waiter.condition.signal();
+        }
+    }
+
+    /**
+     * 没有参与线程在运行时，跳到最早的定时事件，并唤醒同一时刻到期的所有线程
+     */
+    private void advanceIfIdle() {
+        while (busy == 0) {
+            Waiter next = timers.poll();
+            while (next != null && next.woken) {
+                next = timers.poll();
+            }
+            if (next == null) {
+                return;
+            }
+            if (next.wakeAt > now) {
+                now = next.wakeAt;
+            }
+            wakeLocked(next);
+            while (!timers.isEmpty() && timers.peek().wakeAt <= now) {
+                wakeLocked(timers.poll());
+            }
+        }
+    }
+
+    private static final class Waiter {
+        final Condition condition;
+        long wakeAt;
+        long sequence;
+        boolean parked;
+        boolean woken;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
@@ -4,4 +4,11 @@ public interface LogListener {
     void onTaskLog(String message);
 
     void onMessageLog(String message);
+
+    /**
+     * 是否需要逐步移动、逐个请求这类明细日志；返回false时调用方不必拼接这些消息
+     */
+    default boolean isDetailEnabled() {
+        return true;
+    }
 }
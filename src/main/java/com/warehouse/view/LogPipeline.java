@@ -0,0 +1,112 @@
+package com.warehouse.view;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 日志面板的消息管道
+ * 任意线程通过 offer 把消息放入无锁环形缓冲区，缓冲区满时丢弃消息而不是等待；
+ * 界面定时器在事件分发线程上调用 drain，把这段时间的消息合并成一次 append，
+ * 并把面板裁剪到最多保留的行数。
+ */
+public final class LogPipeline {
+    private final JTextArea area;
+    private final int mask;
+    private final String[] messages;
+    // 每个槽位的序号：等于写入位置时可写，等于写入位置+1时可读
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // 只由事件分发线程访问
+    private long head;
+    private volatile int retentionLines;
+
+    /**
+     * @param capacity       缓冲区容量，向上取整为2的幂
+     * @param retentionLines 面板最多保留的行数
+     */
+    public LogPipeline(JTextArea area, int capacity, int retentionLines) {
+        this.area = area;
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.messages = new String[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        setRetentionLines(retentionLines);
+    }
+
+    public void setRetentionLines(int retentionLines) {
+        this.retentionLines = Math.max(1, retentionLines);
+    }
+
+    /**
+     * 放入一条消息，不会阻塞
+     *
+     * @return 缓冲区已满、消息被丢弃时返回false
+     */
+    public boolean offer(String message) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    messages[index] = message;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 取出已到达的全部消息追加到面板，只能在事件分发线程上调用
+     */
+    public void drain() {
+        StringBuilder batch = new StringBuilder();
+        int lines = 0;
+        while (true) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            batch.append(messages[index]).append('\n');
+            messages[index] = null;
+            sequences.set(index, head + mask + 1);
+            head++;
+            lines++;
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            batch.append("... ").append(lost).append(" log messages dropped\n");
+            lines++;
+        }
+        if (lines == 0) {
+            return;
+        }
+        area.append(batch.toString());
+        trim();
+    }
+
+    private void trim() {
+        int excess = area.getLineCount() - 1 - retentionLines;
+        if (excess <= 0) {
+            return;
+        }
+        try {
+            area.getDocument().remove(0, area.getLineStartOffset(excess));
+        } catch (BadLocationException e) {
+            area.setText("");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.warehouse.view;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 图标缓存
+ * 每个图标只从类路径 images/ 目录读取一次，缩放到格子大小后共享同一个实例，绘制时不再读文件也不再缩放。
+ * 类路径上没有资源时（例如直接从源码目录运行）退回到 src/main/resources/images。
+ */
+public final class SpriteCache {
+    private static final String RESOURCE_DIRECTORY = "/images/";
+    private static final String SOURCE_DIRECTORY = "src/main/resources/images/";
+
+    private final int cellSize;
+    private final ConcurrentHashMap<String, BufferedImage> sprites = new ConcurrentHashMap<>();
+
+    public SpriteCache(int cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+    }
+
+    /**
+     * 预先加载图标，之后的 get 不再读文件
+     *
+     * @param names 图标名称，不含 .png 后缀
+     */
+    public void preload(Iterable<String> names) {
+        for (String name : names) {
+            get(name);
+        }
+    }
+
+    /**
+     * 缩放到格子大小的图标；找不到图标文件时返回透明图像
+     *
+     * @param name 图标名称，不含 .png 后缀
+     */
+    public BufferedImage get(String name) {
+        BufferedImage sprite = sprites.get(name);
+        return sprite != null ? sprite : sprites.computeIfAbsent(name, this::load);
+    }
+
+    private BufferedImage load(String name) {
+        BufferedImage scaled = new BufferedImage(cellSize, cellSize, BufferedImage.TYPE_INT_ARGB);
+        try {
+            BufferedImage source = read(name + ".png");
+            if (source == null) {
+                System.err.println("Sprite not found: " + name);
+                return scaled;
+            }
+            Graphics2D g = scaled.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, cellSize, cellSize, null);
+            g.dispose();
+        } catch (IOException e) {
+            System.err.println("Failed to load sprite " + name + ": " + e.getMessage());
+        }
+        return scaled;
+    }
+
+    private static BufferedImage read(String fileName) throws IOException {
+        URL resource = SpriteCache.class.getResource(RESOURCE_DIRECTORY + fileName);
+        if (resource != null) {
+            return ImageIO.read(resource);
+        }
+        File file = new File(SOURCE_DIRECTORY + fileName);
+        return file.isFile() ? ImageIO.read(file) : null;
+    }
+}
@@ -11,9 +11,18 @@ import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 
 public class SupervisorGUI extends JFrame implements LogListener {
+    private static final int LOG_BUFFER_CAPACITY = 8192;
+    private static final int LOG_FRAMES_PER_SECOND = 20;
+    private static final int DEFAULT_LOG_RETENTION = 1000;
+
     private Timer timer;
+    private Timer logTimer;
     private JTextArea messagesArea;
     private JTextArea taskLogArea;
+    private LogPipeline messageLog;
+    private LogPipeline taskLog;
+    private JCheckBox detailLogBox;
+    private volatile boolean detailLogging = true;
     private JTable robotStatusTable;
     private DefaultTableModel tableModel;
     private final WarehouseGrid grid;
@@ -27,9 +36,9 @@ public class SupervisorGUI extends JFrame implements LogListener {
         this.grid = grid;
         instance = this;
 
-        Robot.setLogListener(this);
-
         initializeUI();
+
+        Robot.setLogListener(this);
     }
 
     private void initializeUI() {
@@ -134,6 +143,10 @@ public class SupervisorGUI extends JFrame implements LogListener {
         messagesArea.setBackground(new Color(252, 253, 254));
         messagesArea.setForeground(new Color(50, 80, 120));
 
+        // 日志先进入环形缓冲区，按固定帧率批量追加到面板
+        taskLog = new LogPipeline(taskLogArea, LOG_BUFFER_CAPACITY, DEFAULT_LOG_RETENTION);
+        messageLog = new LogPipeline(messagesArea, LOG_BUFFER_CAPACITY, DEFAULT_LOG_RETENTION);
+
         JScrollPane messageScrollPane = new JScrollPane(messagesArea);
         messageScrollPane.setBorder(BorderFactory.createTitledBorder(
                 BorderFactory.createLineBorder(new Color(100, 149, 200), 1),
@@ -167,6 +180,10 @@ public class SupervisorGUI extends JFrame implements LogListener {
         southPanel.setBackground(new Color(248, 250, 252));
         southPanel.setBorder(BorderFactory.createEmptyBorder(0, 5, 5, 5));
         southPanel.add(taskLogScrollPane);
+        detailLogBox = new JCheckBox("Detailed logs (every step and request)", detailLogging);
+        detailLogBox.setBackground(new Color(248, 250, 252));
+        detailLogBox.addActionListener(e -> detailLogging = detailLogBox.isSelected());
+        southPanel.add(detailLogBox, BorderLayout.SOUTH);
         southPanel.setPreferredSize(new Dimension(400, 200));
         southPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 200));
 
@@ -179,6 +196,12 @@ public class SupervisorGUI extends JFrame implements LogListener {
         // 定时更新机器人状态
         timer = new Timer(100, e -> updateRobotStatuses());
         timer.start();
+
+        logTimer = new Timer(1000 / LOG_FRAMES_PER_SECOND, e -> {
+            taskLog.drain();
+            messageLog.drain();
+        });
+        logTimer.start();
     }
 
     private void adjustProductSpeed(int delta) {
@@ -217,20 +240,30 @@ public class SupervisorGUI extends JFrame implements LogListener {
     // LogListener 实现
     @Override
     public void onTaskLog(String message) {
-        SwingUtilities.invokeLater(() -> {
-            if (taskLogArea != null) {
-                taskLogArea.append(message + "\n");
-            }
-        });
+        taskLog.offer(message);
     }
 
     @Override
     public void onMessageLog(String message) {
-        SwingUtilities.invokeLater(() -> {
-            if (messagesArea != null) {
-                messagesArea.append(message + "\n");
-            }
-        });
+        messageLog.offer(message);
+    }
+
+    @Override
+    public boolean isDetailEnabled() {
+        return detailLogging;
+    }
+
+    /**
+     * 日志面板最多保留的行数
+     */
+    public void setLogRetention(int lines) {
+        taskLog.setRetentionLines(lines);
+        messageLog.setRetentionLines(lines);
+    }
+
+    public void setDetailLogging(boolean detailLogging) {
+        this.detailLogging = detailLogging;
+        SwingUtilities.invokeLater(() -> detailLogBox.setSelected(detailLogging));
     }
 
     // 静态方法保持向后兼容
@@ -273,12 +306,7 @@ public class SupervisorGUI extends JFrame implements LogListener {
         onTaskLog("Activating robot: " + robotId);
         grid.getRobots().stream()
                 .filter(robot -> robot.getId() == Integer.parseInt(robotId))
-                .forEach(robot -> {
-                    robot.start();
-                    if (supervisor != null) {
-                        supervisor.startRobotThread(robot, supervisor.getRobotTaskQueues().get(robot));
-                    }
-                });
+                .forEach(Robot::start);
     }
 
     // 按钮渲染器
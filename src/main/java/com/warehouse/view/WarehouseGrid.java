@@ -1,54 +1,92 @@
 package com.warehouse.view;
 
 import com.warehouse.entity.Robot;
+import com.warehouse.inventory.InventoryIndex;
+import com.warehouse.inventory.ShelfSlotAllocator;
 import com.warehouse.model.Product;
+import com.warehouse.pathfinding.DistanceFieldCache;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class WarehouseGrid extends JPanel implements ActionListener {
+    private static final String COUNTER_SPRITE = "arrow-25";
+    private static final String CHARGING_SPRITE = "plug-24";
+    private static final int FRAMES_PER_SECOND = 60;
+
     private final int cellSize;
     private final int rows;
     private final int columns;
     private final List<Point> shelves;
-    private final List<Point> inboundCounters;
-    private final List<Point> outboundCounters;
+    // 出入库柜台，热更新时整体替换
+    private volatile Counters counters;
     private final List<Point> chargingStations;
     private final ArrayList<Robot> robots;
     private final Timer timer;
     private final Integer contain;
     private Integer currentContain;
-    private final List<Point> usedShelves;
-    private final HashMap<Point, Product> productsInContainer;
+    private final ShelfSlotAllocator slotAllocator;
+    // 按货位编号存放的在库货物；java.awt.Point 的哈希在整数坐标上冲突严重，不用它做键
+    private final AtomicReferenceArray<Product> productsBySlot;
+    private final AtomicInteger storedProductCount = new AtomicInteger();
+    private final InventoryIndex inventoryIndex;
+    private final DistanceFieldCache distanceFields;
+    private final SpriteCache sprites;
+    // 网格线、货架、柜台和充电桩预先画好的静态层，只在布局变化后重画；只在事件分发线程上访问
+    private BufferedImage staticLayer;
+    private volatile boolean layoutChanged = true;
+    // 每个机器人上一次安排重绘时的格子和图标，坐标为-1表示还没有重绘过；只在事件分发线程上访问
+    private final int[] paintedX;
+    private final int[] paintedY;
+    private final String[] paintedImages;
 
     public WarehouseGrid(int cellSize, int gridWidth, int gridHeight,
             List<Point> shelves,
             List<Point> inboundCounters,
             List<Point> outboundCounters,
             List<Point> chargingStations,
-            ArrayList<Robot> robots) {
+            ArrayList<Robot> robots,
+            DistanceFieldCache distanceFields) {
         this.cellSize = cellSize;
         this.rows = gridHeight;
         this.columns = gridWidth;
         this.shelves = shelves;
-        this.inboundCounters = inboundCounters;
-        this.outboundCounters = outboundCounters;
+        this.counters = new Counters(inboundCounters, outboundCounters);
         this.chargingStations = chargingStations;
         this.robots = robots;
         this.contain = 2 * (gridHeight - 2) * shelves.size();
         this.currentContain = 0;
-        this.usedShelves = new ArrayList<>();
-        this.productsInContainer = new HashMap<>();
+        this.slotAllocator = new ShelfSlotAllocator(gridWidth, gridHeight, shelves);
+        this.productsBySlot = new AtomicReferenceArray<>(slotAllocator.getCapacity());
+        this.inventoryIndex = new InventoryIndex(slotAllocator);
+        this.distanceFields = distanceFields;
+        this.sprites = new SpriteCache(cellSize);
+        sprites.preload(List.of(COUNTER_SPRITE, CHARGING_SPRITE));
+        for (Robot robot : robots) {
+            sprites.preload(robot.getImageNames());
+        }
+        this.paintedX = new int[robots.size()];
+        this.paintedY = new int[robots.size()];
+        Arrays.fill(paintedX, -1);
+        Arrays.fill(paintedY, -1);
+        this.paintedImages = new String[robots.size()];
 
         setPreferredSize(new Dimension(columns * cellSize, rows * cellSize));
         setBackground(Color.WHITE);
 
-        timer = new Timer(100, this);
+        timer = new Timer(1000 / FRAMES_PER_SECOND, this);
         timer.start();
     }
 
@@ -71,22 +109,23 @@ public class WarehouseGrid extends JPanel implements ActionListener {
 
         Graphics2D g2d = (Graphics2D) g;
 
-        // 绘制入库柜台 - 缩放图标到 cellSize
-        for (Point inbound : inboundCounters) {
-            Image img = new ImageIcon("src/main/resources/images/arrow-25.png").getImage();
-            g2d.drawImage(img, inbound.x * cellSize, inbound.y * cellSize, cellSize, cellSize, null);
+        Counters counters = this.counters;
+        // 图标已按 cellSize 缩放，直接按原尺寸绘制
+        BufferedImage counterSprite = sprites.get(COUNTER_SPRITE);
+        // 绘制入库柜台
+        for (Point inbound : counters.inbound) {
+            g2d.drawImage(counterSprite, inbound.x * cellSize, inbound.y * cellSize, null);
         }
 
-        // 绘制出库柜台 - 缩放图标到 cellSize
-        for (Point outbound : outboundCounters) {
-            Image img = new ImageIcon("src/main/resources/images/arrow-25.png").getImage();
-            g2d.drawImage(img, outbound.x * cellSize, outbound.y * cellSize, cellSize, cellSize, null);
+        // 绘制出库柜台
+        for (Point outbound : counters.outbound) {
+            g2d.drawImage(counterSprite, outbound.x * cellSize, outbound.y * cellSize, null);
         }
 
-        // 绘制充电桩 - 缩放图标到 cellSize
+        // 绘制充电桩
+        BufferedImage chargingSprite = sprites.get(CHARGING_SPRITE);
         for (Point charging : chargingStations) {
-            Image img = new ImageIcon("src/main/resources/images/plug-24.png").getImage();
-            g2d.drawImage(img, charging.x * cellSize, charging.y * cellSize, cellSize, cellSize, null);
+            g2d.drawImage(chargingSprite, charging.x * cellSize, charging.y * cellSize, null);
         }
     }
 
@@ -96,22 +135,70 @@ public class WarehouseGrid extends JPanel implements ActionListener {
         g.fillRect(x, y, cellSize, cellSize);
     }
 
+    private BufferedImage renderStaticLayer() {
+        BufferedImage layer = new BufferedImage(columns * cellSize + 1, rows * cellSize + 1,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = layer.createGraphics();
+        g.setColor(getBackground());
+        g.fillRect(0, 0, layer.getWidth(), layer.getHeight());
+        drawGrid(g);
+        drawComponents(g);
+        g.dispose();
+        return layer;
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        drawGrid(g);
-        drawComponents(g);
+        if (staticLayer == null) {
+            staticLayer = renderStaticLayer();
+        }
+        g.drawImage(staticLayer, 0, 0, null);
 
         Graphics2D g2d = (Graphics2D) g;
-        // 绘制机器人 - 缩放图标到 cellSize
+        // 绘制机器人，只画与重绘区域相交的
+        Rectangle clip = g.getClipBounds();
         for (Robot robot : robots) {
-            g2d.drawImage(robot.getImage(), robot.getX() * cellSize, robot.getY() * cellSize, cellSize, cellSize, null);
+            int x = robot.getX() * cellSize;
+            int y = robot.getY() * cellSize;
+            if (clip == null || clip.intersects(x, y, cellSize, cellSize)) {
+                g2d.drawImage(sprites.get(robot.getImageName()), x, y, null);
+            }
         }
     }
 
+    /**
+     * 每帧只重绘机器人离开和进入的格子；布局变化时重绘整个面板
+     */
     @Override
     public void actionPerformed(ActionEvent e) {
-        repaint();
+        if (layoutChanged) {
+            // 标记只在这里清除：只重绘一个格子的 paintComponent 不会吞掉整个面板的重绘。
+            // 先清除标记再丢弃静态层，重画期间发生的修改会在下一帧再次触发重画
+            layoutChanged = false;
+            staticLayer = null;
+            repaint();
+        }
+        for (int i = 0; i < robots.size(); i++) {
+            Robot robot = robots.get(i);
+            int x = robot.getX();
+            int y = robot.getY();
+            String image = robot.getImageName();
+            if (x == paintedX[i] && y == paintedY[i] && image.equals(paintedImages[i])) {
+                continue;
+            }
+            if (paintedX[i] >= 0) {
+                repaintCell(paintedX[i], paintedY[i]);
+            }
+            repaintCell(x, y);
+            paintedX[i] = x;
+            paintedY[i] = y;
+            paintedImages[i] = image;
+        }
+    }
+
+    private void repaintCell(int x, int y) {
+        repaint(x * cellSize, y * cellSize, cellSize, cellSize);
     }
 
     public ArrayList<Robot> getRobots() {
@@ -119,15 +206,119 @@ public class WarehouseGrid extends JPanel implements ActionListener {
     }
 
     public List<Point> getInboundCounters() {
-        return inboundCounters;
+        return counters.inbound;
     }
 
     public List<Point> getOutboundCounters() {
-        return outboundCounters;
+        return counters.outbound;
+    }
+
+    /**
+     * 替换出入库柜台：先按新的地标重建距离场，再一次性发布新的柜台列表
+     */
+    public synchronized void setCounters(List<Point> inboundCounters, List<Point> outboundCounters) {
+        Counters next = new Counters(inboundCounters, outboundCounters);
+        distanceFields.rebuild(distanceFields.getGridMap(), landmarks(next));
+        counters = next;
+        layoutChanged = true;
+    }
+
+    public int getStoredProductCount() {
+        return storedProductCount.get();
+    }
+
+    public InventoryIndex getInventoryIndex() {
+        return inventoryIndex;
+    }
+
+    /**
+     * 货物放上货架，同时登记到库存索引
+     */
+    public void storeProduct(Point location, Product product) {
+        int slot = slotAllocator.slotAt(location.x, location.y);
+        if (slot == ShelfSlotAllocator.NO_SLOT) {
+            throw new IllegalArgumentException("Not a shelf slot: " + location);
+        }
+        Product previous = productsBySlot.getAndSet(slot, product);
+        if (previous == null) {
+            storedProductCount.incrementAndGet();
+        } else {
+            // 货位上原来的货物被替换，先从索引中移除
+            inventoryIndex.remove(previous.getName(), previous.getCategory(), location);
+        }
+        inventoryIndex.add(product.getName(), product.getCategory(), location);
+    }
+
+    /**
+     * 启动时恢复上次保存的在库货物：占用各自的货位并放上货架
+     *
+     * @return 无法恢复的货物（货位不是货架格子或已被占用，通常是仓库布局改过了）
+     */
+    public List<Product> restoreProducts(Collection<Product> products) {
+        List<Product> rejected = new ArrayList<>();
+        for (Product product : products) {
+            if (!restoreProduct(product)) {
+                rejected.add(product);
+            }
+        }
+        return rejected;
     }
 
-    public HashMap<Point, Product> getProductsInContainer() {
-        return productsInContainer;
+    /**
+     * 恢复一件在库货物：占用它的货位并放上货架
+     *
+     * @return 货位不是货架格子或已被占用时返回false
+     */
+    public boolean restoreProduct(Product product) {
+        int slot = slotAllocator.slotAt(product.getLocationX(), product.getLocationY());
+        if (slot == ShelfSlotAllocator.NO_SLOT || !slotAllocator.claim(slot)) {
+            return false;
+        }
+        storeProduct(new Point(product.getLocationX(), product.getLocationY()), product);
+        return true;
+    }
+
+    /**
+     * 货物从货架取走，同时从库存索引移除
+     *
+     * @return 取走的货物，货位为空时返回null
+     */
+    public Product takeProduct(Point location) {
+        int slot = slotAllocator.slotAt(location.x, location.y);
+        Product product = slot == ShelfSlotAllocator.NO_SLOT ? null : productsBySlot.getAndSet(slot, null);
+        if (product != null) {
+            storedProductCount.decrementAndGet();
+            inventoryIndex.remove(product.getName(), product.getCategory(), location);
+        }
+        return product;
+    }
+
+    public DistanceFieldCache getDistanceFields() {
+        return distanceFields;
+    }
+
+    /**
+     * 机器人往返的固定地标：入库柜台、出库柜台、充电桩以及每个货架格子对应的取放货位
+     *
+     * @return 按优先级排列的地标集合
+     */
+    public Set<Point> getLandmarks() {
+        return landmarks(counters);
+    }
+
+    private Set<Point> landmarks(Counters counters) {
+        Set<Point> landmarks = new LinkedHashSet<>();
+        landmarks.addAll(counters.inbound);
+        landmarks.addAll(counters.outbound);
+        landmarks.addAll(chargingStations);
+        for (Point shelf : shelves) {
+            landmarks.add(calculateLocation(shelf.x, shelf.y));
+        }
+        return landmarks;
+    }
+
+    public ShelfSlotAllocator getSlotAllocator() {
+        return slotAllocator;
     }
 
     /**
@@ -136,13 +327,43 @@ public class WarehouseGrid extends JPanel implements ActionListener {
      * @return 可用的货架位置，如果没有可用位置返回null
      */
     public Point assignLocation() {
-        for (Point shelf : shelves) {
-            if (!usedShelves.contains(shelf)) {
-                usedShelves.add(shelf);
-                return shelf;
-            }
+        int slot = slotAllocator.allocate();
+        return slot == ShelfSlotAllocator.NO_SLOT ? null : slotLocation(slot);
+    }
+
+    /**
+     * 为一整批货物分配货架位置
+     *
+     * @param count 需要的位置数量
+     * @return 分配到的位置，可用位置不足时返回null且不占用任何位置
+     */
+    public List<Point> assignLocations(int count) {
+        return slotLocations(slotAllocator.allocate(count));
+    }
+
+    /**
+     * 为一整批货物按各自的优先区分配货架位置
+     *
+     * @param preferredZones 每件货物优先放入的分区
+     * @return 分配到的位置，可用位置不足时返回null且不占用任何位置
+     */
+    public List<Point> assignLocations(int[] preferredZones) {
+        return slotLocations(slotAllocator.allocateIn(preferredZones));
+    }
+
+    private List<Point> slotLocations(int[] slots) {
+        if (slots == null) {
+            return null;
+        }
+        List<Point> locations = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            locations.add(slotLocation(slot));
         }
-        return null;
+        return locations;
+    }
+
+    private Point slotLocation(int slot) {
+        return new Point(slotAllocator.slotX(slot), slotAllocator.slotY(slot));
     }
 
     /**
@@ -152,7 +373,7 @@ public class WarehouseGrid extends JPanel implements ActionListener {
      * @return 如果有足够位置返回true
      */
     public boolean hasEnoughSpace(int requiredCount) {
-        return (shelves.size() - usedShelves.size()) >= requiredCount;
+        return slotAllocator.getAvailable() >= requiredCount;
     }
 
     /**
@@ -180,6 +401,19 @@ public class WarehouseGrid extends JPanel implements ActionListener {
      * @param point 要释放的位置
      */
     public void releaseLocation(Point point) {
-        usedShelves.remove(point);
+        int slot = slotAllocator.slotAt(point.x, point.y);
+        if (slot != ShelfSlotAllocator.NO_SLOT) {
+            slotAllocator.release(slot);
+        }
+    }
+
+    private static final class Counters {
+        final List<Point> inbound;
+        final List<Point> outbound;
+
+        Counters(List<Point> inbound, List<Point> outbound) {
+            this.inbound = Collections.unmodifiableList(new ArrayList<>(inbound));
+            this.outbound = Collections.unmodifiableList(new ArrayList<>(outbound));
+        }
     }
 }
@@ -0,0 +1,95 @@
+package com.warehouse.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssignmentSolverTest {
+
+    @Test
+    void matchesBruteForceOnSmallMatrices() {
+        Random random = new Random(13L);
+        for (int round = 0; round < 2000; round++) {
+            int rows = 1 + random.nextInt(6);
+            int cols = rows + random.nextInt(3);
+            long[] cost = new long[rows * cols];
+            // 小范围取值制造大量相同代价
+            int range = random.nextBoolean() ? 5 : 1000;
+            for (int i = 0; i < cost.length; i++) {
+                cost[i] = random.nextInt(range);
+            }
+
+            int[] assignment = AssignmentSolver.solve(cost, rows, cols);
+
+            assertValidAssignment(assignment, rows, cols);
+            assertEquals(bruteForce(cost, rows, cols, 0, new boolean[cols]), total(cost, cols, assignment),
+                    "round " + round);
+        }
+    }
+
+    @Test
+    void solvesKnownMatrix() {
+        long[] cost = {
+                4, 1, 3,
+                2, 0, 5,
+                3, 2, 2
+        };
+
+        assertArrayEquals(new int[]{1, 0, 2}, AssignmentSolver.solve(cost, 3, 3));
+    }
+
+    @Test
+    void handlesLargeCosts() {
+        long big = Long.MAX_VALUE / 16;
+        long[] cost = {
+                big, 1,
+                2, big
+        };
+
+        assertArrayEquals(new int[]{1, 0}, AssignmentSolver.solve(cost, 2, 2));
+    }
+
+    @Test
+    void rejectsMoreRowsThanColumns() {
+        assertThrows(IllegalArgumentException.class, () -> AssignmentSolver.solve(new long[6], 3, 2));
+    }
+
+    private static void assertValidAssignment(int[] assignment, int rows, int cols) {
+        assertEquals(rows, assignment.length);
+        boolean[] used = new boolean[cols];
+        for (int col : assignment) {
+            assertTrue(col >= 0 && col < cols, "column out of range: " + col);
+            assertFalse(used[col], "column assigned twice: " + col);
+            used[col] = true;
+        }
+    }
+
+    private static long total(long[] cost, int cols, int[] assignment) {
+        long sum = 0;
+        for (int row = 0; row < assignment.length; row++) {
+            sum += cost[row * cols + assignment[row]];
+        }
+        return sum;
+    }
+
+    private static long bruteForce(long[] cost, int rows, int cols, int row, boolean[] used) {
+        if (row == rows) {
+            return 0;
+        }
+        long best = Long.MAX_VALUE;
+        for (int col = 0; col < cols; col++) {
+            if (!used[col]) {
+                used[col] = true;
+                best = Math.min(best, cost[row * cols + col] + bruteForce(cost, rows, cols, row + 1, used));
+                used[col] = false;
+            }
+        }
+        return best;
+    }
+}
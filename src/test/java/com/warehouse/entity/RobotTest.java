@@ -0,0 +1,36 @@
+package com.warehouse.entity;
+
+import com.warehouse.pathfinding.BfsPlanner;
+import com.warehouse.pathfinding.GridMap;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class RobotTest {
+    // (4, 2) 三面是货架，另一面是地图边界
+    private final GridMap map = new GridMap(5, 5, List.of(new Point(3, 2), new Point(4, 1), new Point(4, 3)));
+
+    private Robot robot() {
+        return new Robot(1, 0, 0, 2, List.of(new Point(0, 0)), new BfsPlanner(map), 'A', 1);
+    }
+
+    @Test
+    void tripToUnreachableTargetFailsInsteadOfWaitingForever() {
+        Robot robot = robot();
+
+        PathNotFoundException failure = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(PathNotFoundException.class, () -> robot.performTask(4, 2, 0, 4)));
+
+        assertEquals(4, failure.getTargetX());
+        assertEquals(2, failure.getTargetY());
+        assertEquals("inactive", robot.getStatus());
+        assertEquals(0, robot.getX());
+        assertEquals(0, robot.getY());
+    }
+}
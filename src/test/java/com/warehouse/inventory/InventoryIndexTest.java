@@ -0,0 +1,147 @@
+package com.warehouse.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryIndexTest {
+    private final List<Point> shelves = new ArrayList<>();
+    private final InventoryIndex index;
+
+    InventoryIndexTest() {
+        for (int y = 1; y < 20; y++) {
+            for (int x = 1; x < 20; x++) {
+                shelves.add(new Point(x, y));
+            }
+        }
+        index = new InventoryIndex(new ShelfSlotAllocator(21, 21, shelves));
+    }
+
+    @Test
+    void claimsOldestLocationsFirst() {
+        index.add("bolt", "parts", new Point(3, 3));
+        index.add("bolt", "parts", new Point(1, 1));
+        index.add("bolt", "parts", new Point(2, 2));
+
+        assertEquals(List.of(new Point(3, 3), new Point(1, 1)), index.claim("bolt", "parts", 2));
+        assertEquals(1, index.getAvailable("bolt", "parts"));
+        assertEquals(3, index.getStored("bolt", "parts"));
+        assertEquals(List.of(new Point(2, 2)), index.claim("bolt", "parts", 1));
+    }
+
+    @Test
+    void claimIsAllOrNothing() {
+        index.add("bolt", "parts", new Point(1, 1));
+
+        assertNull(index.claim("bolt", "parts", 2));
+        assertNull(index.claim("nut", "parts", 1));
+        assertEquals(1, index.getAvailable("bolt", "parts"));
+    }
+
+    @Test
+    void skusWithSameNameAreSeparate() {
+        index.add("bolt", "parts", new Point(1, 1));
+        index.add("bolt", "tools", new Point(2, 1));
+
+        assertEquals(List.of(new Point(2, 1)), index.claim("bolt", "tools", 1));
+        assertEquals(1, index.getAvailable("bolt", "parts"));
+    }
+
+    @Test
+    void removeWorksForClaimedAndAvailableLocations() {
+        index.add("bolt", "parts", new Point(1, 1));
+        index.add("bolt", "parts", new Point(2, 1));
+        index.claim("bolt", "parts", 1);
+
+        assertTrue(index.remove("bolt", "parts", new Point(1, 1)));
+        assertTrue(index.remove("bolt", "parts", new Point(2, 1)));
+        assertFalse(index.remove("bolt", "parts", new Point(2, 1)));
+        assertFalse(index.remove("bolt", "tools", new Point(3, 1)));
+        assertEquals(0, index.getStored("bolt", "parts"));
+    }
+
+    @Test
+    void releasedLocationIsClaimedNext() {
+        index.add("bolt", "parts", new Point(1, 1));
+        index.add("bolt", "parts", new Point(2, 1));
+        index.claim("bolt", "parts", 1);
+
+        index.release("bolt", "parts", new Point(1, 1));
+        // 没有被领取的货位放回不起作用
+        index.release("bolt", "parts", new Point(2, 1));
+
+        assertEquals(2, index.getAvailable("bolt", "parts"));
+        assertEquals(List.of(new Point(1, 1), new Point(2, 1)), index.claim("bolt", "parts", 2));
+    }
+
+    @Test
+    void rejectsLocationsThatAreNotShelves() {
+        assertThrows(IllegalArgumentException.class, () -> index.add("bolt", "parts", new Point(0, 0)));
+    }
+
+    @Test
+    void randomOperationsMatchReferenceModel() {
+        Random random = new Random(11L);
+        String[] skus = {"a", "b", "c"};
+        List<ArrayDeque<Point>> available = new ArrayList<>();
+        List<Set<Point>> claimedLocations = new ArrayList<>();
+        for (int i = 0; i < skus.length; i++) {
+            available.add(new ArrayDeque<>());
+            claimedLocations.add(new HashSet<>());
+        }
+        List<Point> free = new ArrayList<>(shelves);
+
+        for (int step = 0; step < 20_000; step++) {
+            int sku = random.nextInt(skus.length);
+            int operation = random.nextInt(4);
+            if (operation == 0 && !free.isEmpty()) {
+                Point location = free.remove(random.nextInt(free.size()));
+                index.add(skus[sku], "x", location);
+                available.get(sku).addLast(location);
+            } else if (operation == 1) {
+                int count = 1 + random.nextInt(3);
+                List<Point> claimed = index.claim(skus[sku], "x", count);
+                if (available.get(sku).size() < count) {
+                    assertNull(claimed);
+                } else {
+                    for (Point location : claimed) {
+                        assertEquals(available.get(sku).pollFirst(), location);
+                        claimedLocations.get(sku).add(location);
+                    }
+                }
+            } else if (operation == 2 && !claimedLocations.get(sku).isEmpty()) {
+                Point location = claimedLocations.get(sku).iterator().next();
+                if (random.nextBoolean()) {
+                    index.release(skus[sku], "x", location);
+                    claimedLocations.get(sku).remove(location);
+                    available.get(sku).addFirst(location);
+                } else {
+                    assertTrue(index.remove(skus[sku], "x", location));
+                    claimedLocations.get(sku).remove(location);
+                    free.add(location);
+                }
+            } else if (operation == 3 && !available.get(sku).isEmpty()) {
+                List<Point> candidates = new ArrayList<>(available.get(sku));
+                Point location = candidates.get(random.nextInt(candidates.size()));
+                assertTrue(index.remove(skus[sku], "x", location));
+                available.get(sku).remove(location);
+                free.add(location);
+            }
+            assertEquals(available.get(sku).size(), index.getAvailable(skus[sku], "x"));
+            assertEquals(available.get(sku).size() + claimedLocations.get(sku).size(),
+                    index.getStored(skus[sku], "x"));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.warehouse.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShelfSlotAllocatorTest {
+
+    private static List<Point> shelves(int count) {
+        List<Point> shelves = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            shelves.add(new Point(1 + i % 8, 1 + i / 8));
+        }
+        return shelves;
+    }
+
+    @Test
+    void allocatesInShelfOrderUntilFull() {
+        ShelfSlotAllocator allocator = new ShelfSlotAllocator(10, 10, shelves(5));
+
+        for (int expected = 0; expected < 5; expected++) {
+            assertEquals(expected, allocator.allocate());
+        }
+        assertEquals(0, allocator.getAvailable());
+        assertEquals(ShelfSlotAllocator.NO_SLOT, allocator.allocate());
+    }
+
+    @Test
+    void claimAndReleaseReportPreviousState() {
+        ShelfSlotAllocator allocator = new ShelfSlotAllocator(10, 10, shelves(5));
+
+        assertTrue(allocator.claim(3));
+        assertFalse(allocator.claim(3));
+        assertTrue(allocator.isUsed(3));
+        assertEquals(4, allocator.getAvailable());
+
+        assertTrue(allocator.release(3));
+        assertFalse(allocator.release(3));
+        assertFalse(allocator.isUsed(3));
+        assertEquals(5, allocator.getAvailable());
+    }
+
+    @Test
+    void releasedSlotIsAllocatedAgain() {
+        ShelfSlotAllocator allocator = new ShelfSlotAllocator(10, 10, shelves(3));
+        allocator.allocate(3);
+
+        allocator.release(1);
+
+        assertEquals(1, allocator.allocate());
+        assertEquals(ShelfSlotAllocator.NO_SLOT, allocator.allocate());
+    }
+
+    @Test
+    void batchAllocationIsAllOrNothing() {
+        ShelfSlotAllocator allocator = new ShelfSlotAllocator(10, 10, shelves(4));
+        allocator.claim(0);
+
+        assertNull(allocator.allocate(4));
+        assertEquals(3, allocator.getAvailable());
+        assertArrayEquals(new int[]{1, 2, 3}, allocator.allocate(3));
+    }
+
+    @Test
+    void mapsShelfCellsToSlots() {
+        List<Point> shelves = shelves(10);
+        ShelfSlotAllocator allocator = new ShelfSlotAllocator(10, 10, shelves);
+
+        for (int slot = 0; slot < shelves.size(); slot++) {
+            Point shelf = shelves.get(slot);
+            assertEquals(slot, allocator.slotAt(shelf.x, shelf.y));
+            assertEquals(shelf.x, allocator.slotX(slot));
+            assertEquals(shelf.y, allocator.slotY(slot));
+        }
+        assertEquals(ShelfSlotAllocator.NO_SLOT, allocator.slotAt(0, 0));
+        assertEquals(ShelfSlotAllocator.NO_SLOT, allocator.slotAt(-1, 3));
+        assertEquals(ShelfSlotAllocator.NO_SLOT, allocator.slotAt(10, 0));
+    }
+
+    @Test
+    void zonesFallBackToNearestZoneAndKeepUsedSlots() {
+        ShelfSlotAllocator allocator = new ShelfSlotAllocator(10, 10, shelves(6));
+        allocator.claim(5);
+        // 三个区：{5, 4} {3, 2} {1, 0}
+        allocator.setZones(new int[]{5, 4, 3, 2, 1, 0}, new int[]{2, 2, 2});
+
+        assertTrue(allocator.isUsed(5));
+        assertEquals(3, allocator.getZoneCount());
+        assertEquals(4, allocator.allocateIn(0));
+        // 第0区已满，退到第1区
+        assertEquals(3, allocator.allocateIn(0));
+        assertEquals(1, allocator.allocateIn(2));
+        assertEquals(0, allocator.allocateIn(2));
+        // 第2区已满，退到第1区
+        assertEquals(2, allocator.allocateIn(2));
+        assertEquals(ShelfSlotAllocator.NO_SLOT, allocator.allocateIn(1));
+    }
+
+    @Test
+    void randomOperationsMatchReferenceSet() {
+        int capacity = 200;
+        ShelfSlotAllocator allocator = new ShelfSlotAllocator(10, 30, shelves(capacity));
+        BitSet used = new BitSet(capacity);
+        Random random = new Random(10L);
+
+        for (int i = 0; i < 20_000; i++) {
+            int slot = random.nextInt(capacity);
+            switch (random.nextInt(3)) {
+                case 0:
+                    int allocated = allocator.allocate();
+                    if (used.cardinality() == capacity) {
+                        assertEquals(ShelfSlotAllocator.NO_SLOT, allocated);
+                    } else {
+                        assertNotEquals(ShelfSlotAllocator.NO_SLOT, allocated);
+                        assertFalse(used.get(allocated), "allocated a used slot");
+                        used.set(allocated);
+                    }
+                    break;
+                case 1:
+                    assertEquals(!used.get(slot), allocator.claim(slot));
+                    used.set(slot);
+                    break;
+                default:
+                    assertEquals(used.get(slot), allocator.release(slot));
+                    used.clear(slot);
+                    break;
+            }
+            assertEquals(capacity - used.cardinality(), allocator.getAvailable());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.warehouse.inventory;
+
+import com.warehouse.entity.Robot;
+import com.warehouse.model.Product;
+import com.warehouse.pathfinding.DistanceFieldCache;
+import com.warehouse.pathfinding.GridMap;
+import com.warehouse.view.WarehouseGrid;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VelocitySlottingTest {
+    private static final int WIDTH = 10;
+    private static final int HEIGHT = 12;
+
+    private final WarehouseGrid grid;
+
+    VelocitySlottingTest() {
+        // 与 ConfigLoader 相同的布局：三排双列货架，首尾两行为通道
+        List<Point> shelves = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 2; j++) {
+                for (int k = 0; k < HEIGHT - 2; k++) {
+                    shelves.add(new Point(j + 3 * i + 1, k + 1));
+                }
+            }
+        }
+        GridMap map = new GridMap(WIDTH, HEIGHT, shelves);
+        DistanceFieldCache distanceFields = new DistanceFieldCache(map);
+        grid = new WarehouseGrid(10, WIDTH, HEIGHT, shelves, List.of(new Point(0, 0)),
+                List.of(new Point(WIDTH - 1, 0)), List.of(new Point(0, HEIGHT - 1)), new ArrayList<Robot>(),
+                distanceFields);
+        distanceFields.rebuild(map, grid.getLandmarks());
+    }
+
+    private static Product product(String name) {
+        return new Product(name, "Grills", "", 0);
+    }
+
+    private VelocitySlotting slottingWithFastSku() {
+        VelocitySlotting slotting = new VelocitySlotting(grid);
+        // 只有一个SKU出过库，它被分为A类
+        for (int i = 0; i < 50; i++) {
+            slotting.onPicked(product("Weber"));
+        }
+        assertEquals(VelocitySlotting.CLASS_A, slotting.classOf("Weber", "Grills"));
+        return slotting;
+    }
+
+    @Test
+    void placesFastSkusNextToOutboundCounter() {
+        VelocitySlotting slotting = slottingWithFastSku();
+
+        Point location = slotting.assignLocations(grid, List.of(product("Weber"))).get(0);
+
+        assertTrue(location.x >= 7 && location.y <= 3, "expected a slot near (9, 0) but got " + location);
+    }
+
+    @Test
+    void rezonesAfterCountersMove() {
+        VelocitySlotting slotting = slottingWithFastSku();
+
+        grid.setCounters(List.of(new Point(0, 0)), List.of(new Point(0, HEIGHT - 1)));
+        Point location = slotting.assignLocations(grid, List.of(product("Weber"))).get(0);
+
+        assertTrue(location.x <= 2 && location.y >= HEIGHT - 4, "expected a slot near (0, 11) but got " + location);
+    }
+}
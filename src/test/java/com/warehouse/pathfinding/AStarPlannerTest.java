@@ -0,0 +1,11 @@
+package com.warehouse.pathfinding;
+
+import org.junit.jupiter.api.Test;
+
+class AStarPlannerTest {
+
+    @Test
+    void findsPathsAsShortAsBfsOnRandomGrids() {
+        RandomGrids.assertShortestPaths(AStarPlanner::new, 2L);
+    }
+}
@@ -0,0 +1,36 @@
+package com.warehouse.pathfinding;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BfsPlannerTest {
+
+    @Test
+    void matchesReferenceBfsOnRandomGrids() {
+        RandomGrids.assertShortestPaths(BfsPlanner::new, 1L);
+    }
+
+    @Test
+    void returnsZeroWhenTargetIsWalledOff() {
+        GridMap map = new GridMap(5, 5, List.of(new Point(3, 2), new Point(4, 1), new Point(4, 3)));
+        BfsPlanner planner = new BfsPlanner(map);
+
+        assertEquals(0, planner.plan(0, 0, 4, 2));
+        assertEquals(0, planner.plan(0, 0, 9, 9));
+    }
+
+    @Test
+    void reusesBuffersAcrossManyPlans() {
+        GridMap map = new GridMap(30, 30, List.of());
+        BfsPlanner planner = new BfsPlanner(map);
+        // 代次计数在多次规划之间不会残留上一次的访问标记
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(1 + 29 + 29, planner.plan(0, 0, 29, 29));
+            assertEquals(1, planner.plan(5, 5, 5, 5));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.warehouse.pathfinding;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CooperativePlannerTest {
+    private long nanos;
+
+    private final GridMap map = new GridMap(30, 3, List.of());
+    // 窗口只有4个时刻，远处的冲突只能靠停靠登记避开
+    private final ReservationTable reservations = new ReservationTable(map.getCellCount(), 4, 1, () -> nanos);
+    private final DistanceFieldCache distanceFields = new DistanceFieldCache(map);
+
+    private CooperativePlanner planner(int robotId) {
+        return new CooperativePlanner(reservations, distanceFields, new BfsPlanner(map), robotId, 1);
+    }
+
+    private boolean passes(PathPlanner planner, int length, int x, int y) {
+        for (int i = 0; i < length; i++) {
+            if (planner.getPath()[i] == map.cellId(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void routesAroundRobotParkedBeyondTheWindow() {
+        CooperativePlanner parked = planner(1);
+        parked.park(20, 1);
+        CooperativePlanner moving = planner(2);
+
+        int length = moving.plan(0, 1, 29, 1);
+
+        assertTrue(length > 0);
+        assertFalse(passes(moving, length, 20, 1));
+        RandomGrids.assertValidPath(map, moving.getPath(), length, new Point(0, 1), new Point(29, 1));
+    }
+
+    @Test
+    void parksAtTheEndOfEachLegAndLeavesOnTheNextPlan() {
+        CooperativePlanner first = planner(1);
+        CooperativePlanner second = planner(2);
+
+        assertEquals(11, first.plan(0, 0, 10, 0));
+        assertTrue(reservations.isParked(map.cellId(10, 0), 2));
+
+        // 第一台机器人出发去别处后，停靠格让出来
+        first.plan(10, 0, 10, 2);
+        assertFalse(reservations.isParked(map.cellId(10, 0), 2));
+        int length = second.plan(0, 0, 20, 0);
+        assertEquals(21, length);
+        assertTrue(passes(second, length, 10, 0));
+    }
+
+    @Test
+    void waitsWhileAnotherRobotStandsOnTheNextCell() {
+        CooperativePlanner standing = planner(1);
+        standing.park(5, 0);
+        CooperativePlanner moving = planner(2);
+        moving.park(4, 0);
+
+        assertFalse(moving.tryEnter(4, 0, 5, 0));
+        // 对方离开后才能进入
+        assertTrue(standing.tryEnter(5, 0, 6, 0));
+        assertTrue(moving.tryEnter(4, 0, 5, 0));
+        assertTrue(reservations.isOccupied(map.cellId(5, 0), 1));
+        assertFalse(reservations.isOccupied(map.cellId(4, 0), 1));
+    }
+
+    @Test
+    void passesAfterStayingBlockedForSeveralPlans() {
+        GridMap corridor = new GridMap(10, 1, List.of());
+        ReservationTable table = new ReservationTable(corridor.getCellCount(), 4, 1, () -> nanos);
+        DistanceFieldCache fields = new DistanceFieldCache(corridor);
+        CooperativePlanner standing = new CooperativePlanner(table, fields, new BfsPlanner(corridor), 1, 1);
+        CooperativePlanner moving = new CooperativePlanner(table, fields, new BfsPlanner(corridor), 2, 1);
+        standing.park(5, 0);
+        moving.park(4, 0);
+        moving.plan(4, 0, 9, 0);
+
+        // 单行通道里绕不过去，也让不开：几次规划之后不再等待
+        int plans = 0;
+        while (!moving.tryEnter(4, 0, 5, 0)) {
+            assertTrue(++plans <= 3);
+            moving.plan(4, 0, 9, 0);
+        }
+        assertEquals(3, plans);
+    }
+}
@@ -0,0 +1,41 @@
+package com.warehouse.pathfinding;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JumpPointPlannerTest {
+
+    @Test
+    void findsPathsAsShortAsBfsOnRandomGrids() {
+        RandomGrids.assertShortestPaths(JumpPointPlanner::new, 3L);
+    }
+
+    @Test
+    void findsShortestPathThroughWarehouseAisles() {
+        // 与 ConfigLoader 相同的货架布局：每三列中两列货架、一列通道，首尾两行留空
+        int width = 16;
+        int height = 21;
+        List<Point> shelves = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 2; j++) {
+                for (int k = 0; k < height - 2; k++) {
+                    shelves.add(new Point(j + 3 * i + 1, k + 1));
+                }
+            }
+        }
+        GridMap map = new GridMap(width, height, shelves);
+        JumpPointPlanner planner = new JumpPointPlanner(map);
+
+        Point start = new Point(0, 0);
+        Point target = new Point(6, 10);
+        int length = planner.plan(start.x, start.y, target.x, target.y);
+
+        assertEquals(RandomGrids.referenceLength(map, start, target), length);
+        RandomGrids.assertValidPath(map, planner.getPath(), length, start, target);
+    }
+}
@@ -0,0 +1,40 @@
+package com.warehouse.pathfinding;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LandmarkPlannerTest {
+
+    @Test
+    void descendsDistanceFieldsAlongShortestPaths() {
+        Random random = new Random(4L);
+        for (int round = 0; round < 20; round++) {
+            GridMap map = RandomGrids.create(random, 10 + random.nextInt(30), 10 + random.nextInt(30), 0.3);
+            List<Point> landmarks = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                landmarks.add(RandomGrids.randomWalkable(random, map));
+            }
+            DistanceFieldCache fields = new DistanceFieldCache(map);
+            fields.rebuild(map, landmarks);
+            LandmarkPlanner planner = new LandmarkPlanner(fields, new BfsPlanner(map));
+
+            for (int query = 0; query < 30; query++) {
+                Point start = RandomGrids.randomWalkable(random, map);
+                // 一半查询以地标为终点走距离场，另一半交给底层规划器
+                Point target = query % 2 == 0 ? landmarks.get(query % landmarks.size())
+                        : RandomGrids.randomWalkable(random, map);
+                int length = planner.plan(start.x, start.y, target.x, target.y);
+                assertEquals(RandomGrids.referenceLength(map, start, target), length);
+                if (length > 0) {
+                    RandomGrids.assertValidPath(map, planner.getPath(), length, start, target);
+                }
+            }
+        }
+    }
+}
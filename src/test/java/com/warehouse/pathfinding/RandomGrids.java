@@ -0,0 +1,113 @@
+package com.warehouse.pathfinding;
+
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 规划器测试用的随机网格和参考实现
+ */
+final class RandomGrids {
+
+    private RandomGrids() {
+    }
+
+    /**
+     * 按给定密度随机放置障碍的网格
+     */
+    static GridMap create(Random random, int width, int height, double density) {
+        List<Point> obstacles = new ArrayList<>();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (random.nextDouble() < density) {
+                    obstacles.add(new Point(x, y));
+                }
+            }
+        }
+        return new GridMap(width, height, obstacles);
+    }
+
+    static Point randomWalkable(Random random, GridMap map) {
+        while (true) {
+            int x = random.nextInt(map.getWidth());
+            int y = random.nextInt(map.getHeight());
+            if (map.isWalkable(x, y)) {
+                return new Point(x, y);
+            }
+        }
+    }
+
+    /**
+     * 朴素 BFS 求最短路径的格子数（包含起点），不可达时返回0
+     */
+    static int referenceLength(GridMap map, Point start, Point target) {
+        int[] distance = new int[map.getCellCount()];
+        Arrays.fill(distance, -1);
+        ArrayDeque<Point> queue = new ArrayDeque<>();
+        queue.add(start);
+        distance[map.cellId(start.x, start.y)] = 0;
+        while (!queue.isEmpty()) {
+            Point current = queue.poll();
+            int d = distance[map.cellId(current.x, current.y)];
+            if (current.equals(target)) {
+                return d + 1;
+            }
+            for (int i = 0; i < GridPlanner.DX.length; i++) {
+                int nx = current.x + GridPlanner.DX[i];
+                int ny = current.y + GridPlanner.DY[i];
+                if (map.isWalkable(nx, ny) && distance[map.cellId(nx, ny)] < 0) {
+                    distance[map.cellId(nx, ny)] = d + 1;
+                    queue.add(new Point(nx, ny));
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 检查规划结果从起点出发、在终点结束、逐格相邻且不穿过障碍
+     */
+    static void assertValidPath(GridMap map, int[] path, int length, Point start, Point target) {
+        assertEquals(map.cellId(start.x, start.y), path[0], "path must begin at the start");
+        assertEquals(map.cellId(target.x, target.y), path[length - 1], "path must end at the target");
+        for (int i = 1; i < length; i++) {
+            int x = map.cellX(path[i]);
+            int y = map.cellY(path[i]);
+            assertTrue(map.isWalkable(x, y), "path crosses an obstacle at " + x + "," + y);
+            int step = Math.abs(x - map.cellX(path[i - 1])) + Math.abs(y - map.cellY(path[i - 1]));
+            assertEquals(1, step, "path cells must be adjacent");
+        }
+    }
+
+    /**
+     * 在随机网格上比较规划器与参考 BFS 的路径长度
+     */
+    static void assertShortestPaths(PlannerFactory factory, long seed) {
+        Random random = new Random(seed);
+        for (int round = 0; round < 40; round++) {
+            GridMap map = create(random, 5 + random.nextInt(40), 5 + random.nextInt(40), random.nextDouble() * 0.4);
+            PathPlanner planner = factory.create(map);
+            for (int query = 0; query < 25; query++) {
+                Point start = randomWalkable(random, map);
+                Point target = randomWalkable(random, map);
+                int expected = referenceLength(map, start, target);
+                int length = planner.plan(start.x, start.y, target.x, target.y);
+                assertEquals(expected, length, "path length from " + start + " to " + target);
+                if (length > 0) {
+                    assertValidPath(map, planner.getPath(), length, start, target);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface PlannerFactory {
+        PathPlanner create(GridMap map);
+    }
+}
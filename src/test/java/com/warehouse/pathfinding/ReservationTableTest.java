@@ -0,0 +1,69 @@
+package com.warehouse.pathfinding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReservationTableTest {
+    private long nanos;
+
+    private ReservationTable table() {
+        return new ReservationTable(100, 8, 1, () -> nanos);
+    }
+
+    @Test
+    void reservationsExcludeOtherRobotsAtTheSameTick() {
+        ReservationTable table = table();
+
+        assertTrue(table.tryReserve(5, 3, 1));
+        assertTrue(table.tryReserve(5, 3, 1));
+        assertFalse(table.tryReserve(5, 3, 2));
+        assertTrue(table.tryReserve(5, 4, 2));
+        assertFalse(table.isFree(5, 3, 2));
+        assertTrue(table.isFree(5, 3, 1));
+
+        table.release(5, 3, 1);
+        assertTrue(table.tryReserve(5, 3, 2));
+    }
+
+    @Test
+    void parkedCellIsHeldFromArrivalUntilUnparked() {
+        ReservationTable table = table();
+
+        assertTrue(table.park(7, 4, 1));
+        // 到达之前其他机器人仍可经过
+        assertTrue(table.isFree(7, 3, 2));
+        assertFalse(table.isFree(7, 4, 2));
+        // 停靠不受预约窗口限制
+        assertFalse(table.isFree(7, 1000, 2));
+        assertFalse(table.tryReserve(7, 1000, 2));
+        assertTrue(table.isFree(7, 1000, 1));
+        assertFalse(table.park(7, 0, 2));
+        assertTrue(table.isParked(7, 2));
+        assertFalse(table.isParked(7, 1));
+
+        table.unpark(7, 2);
+        assertTrue(table.isParked(7, 2));
+        table.unpark(7, 1);
+        assertFalse(table.isParked(7, 2));
+        assertTrue(table.tryReserve(7, 1000, 2));
+    }
+
+    @Test
+    void occupiedCellAdmitsOneRobotUntilVacated() {
+        ReservationTable table = table();
+
+        assertTrue(table.occupy(9, 1));
+        assertTrue(table.occupy(9, 1));
+        assertFalse(table.occupy(9, 2));
+        assertTrue(table.isOccupied(9, 2));
+        assertFalse(table.isOccupied(9, 1));
+
+        // 只有格子上的机器人能让出格子
+        table.vacate(9, 2);
+        assertTrue(table.isOccupied(9, 2));
+        table.vacate(9, 1);
+        assertTrue(table.occupy(9, 2));
+    }
+}
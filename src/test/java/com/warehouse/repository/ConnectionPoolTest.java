@@ -0,0 +1,164 @@
+package com.warehouse.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    // 每个测试一个独立的内存数据库，最后一个连接关闭后仍然保留
+    private final String url = "jdbc:h2:mem:pool" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+    private final AtomicInteger opened = new AtomicInteger();
+    private final List<ConnectionPool> pools = new ArrayList<>();
+
+    private ConnectionPool pool(int size) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS Counter (Id INT PRIMARY KEY, Hits INT NOT NULL)");
+        }
+        ConnectionPool pool = new ConnectionPool(() -> {
+            opened.incrementAndGet();
+            return DriverManager.getConnection(url);
+        }, size);
+        pools.add(pool);
+        return pool;
+    }
+
+    @AfterEach
+    void closePools() {
+        for (ConnectionPool pool : pools) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void reusesConnectionsAndStatements() throws SQLException {
+        ConnectionPool pool = pool(2);
+        String sql = "SELECT COUNT(*) FROM Counter";
+
+        Connection connection;
+        PreparedStatement statement;
+        try (ConnectionPool.PooledConnection pooled = pool.borrow()) {
+            connection = pooled.getConnection();
+            statement = pooled.prepare(sql);
+            assertSame(statement, pooled.prepare(sql));
+        }
+        try (ConnectionPool.PooledConnection pooled = pool.borrow()) {
+            // 归还后再借到的是同一个连接，语句不用重新准备
+            assertSame(connection, pooled.getConnection());
+            assertSame(statement, pooled.prepare(sql));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertTrue(resultSet.next());
+                assertEquals(0, resultSet.getInt(1));
+            }
+        }
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    void concurrentBorrowersNeverExceedPoolSize() throws Exception {
+        int size = 3;
+        ConnectionPool pool = pool(size);
+        try (ConnectionPool.PooledConnection pooled = pool.borrow()) {
+            pooled.getConnection().createStatement().execute("INSERT INTO Counter VALUES (1, 0)");
+        }
+        AtomicInteger borrowed = new AtomicInteger();
+        AtomicInteger maxBorrowed = new AtomicInteger();
+        int threads = 8;
+        int rounds = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < rounds; i++) {
+                        try (ConnectionPool.PooledConnection pooled = pool.borrow()) {
+                            maxBorrowed.accumulateAndGet(borrowed.incrementAndGet(), Math::max);
+                            pooled.prepare("UPDATE Counter SET Hits = Hits + 1 WHERE Id = 1").executeUpdate();
+                            borrowed.decrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(maxBorrowed.get() <= size, "borrowed " + maxBorrowed.get() + " connections at once");
+        assertTrue(opened.get() <= size, "opened " + opened.get() + " connections");
+        try (ConnectionPool.PooledConnection pooled = pool.borrow();
+             ResultSet resultSet = pooled.prepare("SELECT Hits FROM Counter WHERE Id = 1").executeQuery()) {
+            assertTrue(resultSet.next());
+            assertEquals(threads * rounds, resultSet.getInt(1));
+        }
+    }
+
+    @Test
+    void discardWakesWaitingBorrower() throws Exception {
+        ConnectionPool pool = pool(1);
+        ConnectionPool.PooledConnection first = pool.borrow();
+        CountDownLatch waiting = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ConnectionPool.PooledConnection> second = executor.submit(() -> {
+                waiting.countDown();
+                return pool.borrow();
+            });
+            waiting.await();
+            // 等待者此时阻塞在空池上；丢弃连接后它应当打开新的连接
+            Thread.sleep(100);
+            first.discard();
+
+            ConnectionPool.PooledConnection replacement = second.get(5, TimeUnit.SECONDS);
+            assertNotSame(first.getConnection(), replacement.getConnection());
+            assertEquals(2, opened.get());
+            replacement.close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void closeFailsWaitingBorrower() throws Exception {
+        ConnectionPool pool = pool(1);
+        ConnectionPool.PooledConnection first = pool.borrow();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ConnectionPool.PooledConnection> second = executor.submit(pool::borrow);
+            Thread.sleep(100);
+            pool.close();
+
+            Exception e = assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof SQLException, String.valueOf(e));
+            first.close();
+            assertTrue(first.getConnection().isClosed());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
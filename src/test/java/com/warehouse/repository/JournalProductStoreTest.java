@@ -0,0 +1,125 @@
+package com.warehouse.repository;
+
+import com.warehouse.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalProductStoreTest {
+    @TempDir
+    Path directory;
+
+    private static Product product(int id) {
+        return new Product(id, "Weber", "Grills", "G" + id, id / 10, id % 10, 1, 2.5 * id);
+    }
+
+    private static List<Integer> ids(Collection<Product> products) {
+        List<Integer> ids = new ArrayList<>();
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    void recoversAfterClose() throws Exception {
+        JournalProductStore store = JournalProductStore.open(directory, 1000);
+        for (int id = 1; id <= 5; id++) {
+            store.store(product(id));
+        }
+        store.remove(product(2));
+        store.close();
+
+        JournalProductStore reopened = JournalProductStore.open(directory, 1000);
+        assertEquals(List.of(1, 3, 4, 5), ids(reopened.getProducts()));
+        Product restored = reopened.getProducts().iterator().next();
+        assertEquals("G1", restored.getGroupId());
+        assertEquals(1, restored.getLocationX());
+        assertEquals(0, restored.getLocationY());
+        assertEquals(2.5, restored.getWeight());
+        reopened.close();
+    }
+
+    @Test
+    void replaysJournalAfterCrash() throws Exception {
+        // 快照间隔为3：一部分货物在快照里，其余的只在日志里；不调用 close 模拟崩溃
+        JournalProductStore store = JournalProductStore.open(directory, 3);
+        for (int id = 1; id <= 7; id++) {
+            store.store(product(id));
+        }
+        store.remove(product(6));
+
+        JournalProductStore reopened = JournalProductStore.open(directory, 3);
+        assertEquals(List.of(1, 2, 3, 4, 5, 7), ids(reopened.getProducts()));
+        reopened.close();
+    }
+
+    @Test
+    void ignoresTornFinalRecord() throws Exception {
+        JournalProductStore store = JournalProductStore.open(directory, 1000);
+        for (int id = 1; id <= 4; id++) {
+            store.store(product(id));
+        }
+        // 最后一条记录写到一半时崩溃：内容已写出一部分，校验和对不上
+        Path file = directory.resolve(JournalProductStore.JOURNAL_FILE);
+        ByteBuffer journal = ByteBuffer.wrap(Files.readAllBytes(file));
+        int position = Integer.BYTES + Long.BYTES;
+        int last = position;
+        while (journal.getInt(position) > 0) {
+            last = position;
+            position += 2 * Integer.BYTES + journal.getInt(position);
+        }
+        corrupt(file, last + 2 * Integer.BYTES + 1);
+
+        JournalProductStore reopened = JournalProductStore.open(directory, 1000);
+        assertEquals(List.of(1, 2, 3), ids(reopened.getProducts()));
+        // 之后的记录接在完整记录后面，不受损坏内容影响
+        reopened.store(product(9));
+        JournalProductStore again = JournalProductStore.open(directory, 1000);
+        assertEquals(List.of(1, 2, 3, 9), ids(again.getProducts()));
+        again.close();
+    }
+
+    private static void corrupt(Path file, int offset) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[offset] ^= 0x5A;
+        Files.write(file, bytes);
+    }
+
+    @Test
+    void keepsRejectedProductsAcrossRestarts() throws Exception {
+        JournalProductStore store = JournalProductStore.open(directory, 1000);
+        for (int id = 1; id <= 3; id++) {
+            store.store(product(id));
+        }
+        store.reject(product(2));
+
+        // 拒收记录从日志重放
+        JournalProductStore crashed = JournalProductStore.open(directory, 1000);
+        assertEquals(List.of(1, 3), ids(crashed.getProducts()));
+        assertEquals(List.of(2), ids(crashed.getRejected()));
+        crashed.close();
+
+        // 拒收的货物写在快照里，重新存入后恢复为在库货物
+        JournalProductStore reopened = JournalProductStore.open(directory, 1000);
+        assertEquals(List.of(2), ids(reopened.getRejected()));
+        reopened.store(reopened.getRejected().iterator().next());
+        assertTrue(reopened.getRejected().isEmpty());
+        reopened.close();
+
+        JournalProductStore last = JournalProductStore.open(directory, 1000);
+        assertEquals(List.of(1, 3, 2), ids(last.getProducts()));
+        assertTrue(last.getRejected().isEmpty());
+        last.close();
+    }
+}
@@ -0,0 +1,183 @@
+package com.warehouse.repository;
+
+import com.warehouse.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindProductStoreTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private final String url = "jdbc:h2:mem:writes" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+    private final DatabaseManager databaseManager = new DatabaseManager(() -> DriverManager.getConnection(url), 2);
+
+    @AfterEach
+    void disconnect() {
+        databaseManager.closeConnection();
+    }
+
+    private void createTable() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE Products (ProductID BIGINT NOT NULL PRIMARY KEY, "
+                    + "Name VARCHAR(100) NOT NULL, Category VARCHAR(100) NOT NULL, GroupID VARCHAR(100) NOT NULL, "
+                    + "LocationX INTEGER, LocationY INTEGER, Weight DOUBLE NOT NULL)");
+        }
+    }
+
+    private static Product product(int id) {
+        return new Product(id, "Weber", "Grills", "G" + id, id % 10, id / 10, 1, 5.0);
+    }
+
+    private Set<Integer> storedIds() throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        databaseManager.loadProducts(product -> ids.add(product.getId()));
+        return ids;
+    }
+
+    @Test
+    void overflowDoesNotBlockCallers() throws SQLException {
+        createTable();
+        databaseManager.connect(false);
+        WriteBehindProductStore store = new WriteBehindProductStore(databaseManager, 100, 10, 8);
+
+        // 写线程尚未启动，队列只能放100条：其余的进入溢出列表，调用方不等待
+        for (int id = 1; id <= 100; id++) {
+            store.store(product(id));
+        }
+        for (int id = 1; id <= 100; id += 2) {
+            store.remove(product(id));
+        }
+        assertEquals(150, store.getPending());
+
+        store.start();
+        store.close();
+
+        Set<Integer> expected = new HashSet<>();
+        for (int id = 2; id <= 100; id += 2) {
+            expected.add(id);
+        }
+        assertEquals(expected, storedIds());
+        assertEquals(0, store.getFailed());
+        assertEquals(150, store.getWritten() + store.getCoalesced());
+    }
+
+    @Test
+    void failedBatchesAreRetried() throws Exception {
+        // 表还不存在：写库失败，写操作保留到表建好以后
+        databaseManager.connect(false);
+        WriteBehindProductStore store = new WriteBehindProductStore(databaseManager, 16, 0, 4);
+        store.start();
+        for (int id = 1; id <= 10; id++) {
+            store.store(product(id));
+        }
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertEquals(0, store.getWritten());
+
+        createTable();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (store.getWritten() < 10 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        store.close();
+
+        assertEquals(10, store.getWritten());
+        assertEquals(0, store.getFailed());
+        assertEquals(10, storedIds().size());
+    }
+
+    @Test
+    void closeWritesEverythingAcceptedAndRejectsLaterWrites() throws Exception {
+        createTable();
+        databaseManager.connect(false);
+        WriteBehindProductStore store = new WriteBehindProductStore(databaseManager, 8, 1000, 1000);
+        store.start();
+        AtomicInteger accepted = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            for (int id = 1; id <= 20000; id++) {
+                try {
+                    store.store(product(id));
+                } catch (SQLException e) {
+                    return;
+                }
+                accepted.incrementAndGet();
+            }
+        });
+        producer.start();
+        TimeUnit.MILLISECONDS.sleep(50);
+        store.close();
+        producer.join();
+
+        // 关闭之前接收的写操作都已写入，之后的都被拒绝
+        assertTrue(accepted.get() > 0);
+        assertEquals(accepted.get(), store.getWritten());
+        assertEquals(accepted.get(), storedIds().size());
+        assertThrows(SQLException.class, () -> store.store(product(0)));
+    }
+
+    @Test
+    void callersWaitWhenOverflowIsFull() throws Exception {
+        createTable();
+        databaseManager.connect(false);
+        WriteBehindProductStore store = new WriteBehindProductStore(databaseManager, 2, 0, 8);
+        // 队列和溢出列表各放2条
+        for (int id = 1; id <= 4; id++) {
+            store.store(product(id));
+        }
+        Thread producer = new Thread(() -> {
+            try {
+                store.store(product(5));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive());
+        assertEquals(4, store.getPending());
+
+        // 写线程赶上后调用方继续
+        store.start();
+        producer.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(producer.isAlive());
+        store.close();
+        assertEquals(Set.of(1, 2, 3, 4, 5), storedIds());
+    }
+
+    @Test
+    void badRowIsDroppedWithoutBlockingLaterWrites() throws Exception {
+        createTable();
+        databaseManager.connect(false);
+        WriteBehindProductStore store = new WriteBehindProductStore(databaseManager, 16, 0, 16);
+        // 同一编号入库两次：整批写入一直违反主键约束，逐条写入后只丢弃重复的那一行
+        for (int id = 1; id <= 5; id++) {
+            store.store(product(id));
+        }
+        store.store(product(3));
+        store.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (store.getFailed() == 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        // 之后的写操作照常写入
+        store.store(product(6));
+        store.close();
+
+        assertEquals(1, store.getFailed());
+        assertEquals(6, store.getWritten());
+        assertEquals(Set.of(1, 2, 3, 4, 5, 6), storedIds());
+    }
+}
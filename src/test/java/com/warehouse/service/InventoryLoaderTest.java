@@ -0,0 +1,80 @@
+package com.warehouse.service;
+
+import com.warehouse.entity.Robot;
+import com.warehouse.model.Product;
+import com.warehouse.pathfinding.DistanceFieldCache;
+import com.warehouse.pathfinding.GridMap;
+import com.warehouse.repository.DatabaseManager;
+import com.warehouse.view.WarehouseGrid;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InventoryLoaderTest {
+    private static final String URL = "jdbc:h2:mem:warmstart;DB_CLOSE_DELAY=-1";
+
+    private final DatabaseManager databaseManager = new DatabaseManager(() -> DriverManager.getConnection(URL), 1);
+
+    @AfterEach
+    void dropTable() throws SQLException {
+        databaseManager.closeConnection();
+        try (Connection connection = DriverManager.getConnection(URL);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE Products");
+        }
+    }
+
+    private static WarehouseGrid grid() {
+        List<Point> shelves = new ArrayList<>();
+        for (int y = 1; y < 9; y++) {
+            shelves.add(new Point(1, y));
+            shelves.add(new Point(2, y));
+        }
+        GridMap map = new GridMap(6, 10, shelves);
+        return new WarehouseGrid(10, 6, 10, shelves, List.of(new Point(0, 0)), List.of(new Point(5, 0)),
+                List.of(new Point(0, 9)), new ArrayList<Robot>(), new DistanceFieldCache(map));
+    }
+
+    private static Product product(int id, int x, int y) {
+        return new Product(id, "Weber", "Grills", "G", y, x, 1, 5.0);
+    }
+
+    @Test
+    void warmStartLeavesRejectedRowsInDatabase() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE Products (ProductID BIGINT NOT NULL PRIMARY KEY, "
+                    + "Name VARCHAR(100) NOT NULL, Category VARCHAR(100) NOT NULL, GroupID VARCHAR(100) NOT NULL, "
+                    + "LocationX INTEGER, LocationY INTEGER, Weight DOUBLE NOT NULL)");
+        }
+        databaseManager.connect(false);
+        databaseManager.addProduct(product(1, 1, 1));
+        // 布局缩小后不在货架上的货物，以及与其他货物重叠的货物
+        databaseManager.addProduct(product(2, 4, 4));
+        databaseManager.addProduct(product(3, 1, 1));
+        databaseManager.addProduct(product(4, 2, 8));
+
+        WarehouseGrid grid = grid();
+        Supervisor supervisor = new Supervisor(grid);
+        new InventoryLoader(databaseManager, supervisor).run();
+
+        assertEquals(2, grid.getStoredProductCount());
+        assertEquals(1, grid.takeProduct(new Point(1, 1)).getId());
+        assertEquals(4, grid.takeProduct(new Point(2, 8)).getId());
+        // 放不下的货物只跳过，数据库中的行都还在
+        Set<Integer> ids = new HashSet<>();
+        assertEquals(4, databaseManager.loadProducts(product -> ids.add(product.getId())));
+        assertEquals(Set.of(1, 2, 3, 4), ids);
+    }
+}
@@ -0,0 +1,102 @@
+package com.warehouse.service;
+
+import com.warehouse.model.Task;
+import com.warehouse.simulation.SystemClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskQueueTest {
+    private final SystemClock clock = SystemClock.INSTANCE;
+
+    private static Task task() {
+        return new Task("OUTBOUND", List.of(), 0);
+    }
+
+    @Test
+    void queuedTasksAreTakenInOrder() throws InterruptedException {
+        TaskQueue queue = new TaskQueue();
+        Task first = task();
+        Task second = task();
+        queue.enqueueTask(first);
+        queue.enqueueTask(second);
+
+        assertSame(first, queue.take(clock));
+        assertSame(second, queue.take(clock));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void enqueueHandsTaskToWaitingConsumer() {
+        TaskQueue queue = new TaskQueue();
+        CompletableFuture<Task> waiting = queue.nextTask();
+        assertFalse(waiting.isDone());
+
+        Task task = task();
+        queue.enqueueTask(task);
+
+        assertSame(task, waiting.join());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void blockedTakeWakesWhenTaskArrives() {
+        TaskQueue queue = new TaskQueue();
+        Task task = task();
+        CountDownLatch started = new CountDownLatch(1);
+
+        Task taken = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            CompletableFuture<Task> consumer = CompletableFuture.supplyAsync(() -> {
+                started.countDown();
+                try {
+                    return queue.take(clock);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            started.await();
+            queue.enqueueTask(task);
+            return consumer.get(5, TimeUnit.SECONDS);
+        });
+
+        assertSame(task, taken);
+    }
+
+    @Test
+    void pollTimesOutAndCancelsItsWaiter() throws InterruptedException {
+        TaskQueue queue = new TaskQueue();
+
+        assertNull(queue.poll(clock, 10));
+
+        // 超时的等待者已取消，之后入队的任务留在队列中
+        Task task = task();
+        queue.enqueueTask(task);
+        assertEquals(1, queue.size());
+        assertSame(task, queue.dequeueTask());
+    }
+
+    @Test
+    void cancelledWaiterIsSkippedByEnqueue() {
+        TaskQueue queue = new TaskQueue();
+        CompletableFuture<Task> cancelled = queue.nextTask();
+        CompletableFuture<Task> waiting = queue.nextTask();
+        cancelled.cancel(false);
+
+        Task task = task();
+        queue.enqueueTask(task);
+
+        assertSame(task, waiting.join());
+        assertTrue(queue.isEmpty());
+    }
+}
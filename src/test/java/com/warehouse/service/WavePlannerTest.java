@@ -0,0 +1,91 @@
+package com.warehouse.service;
+
+import com.warehouse.entity.Robot;
+import com.warehouse.model.Product;
+import com.warehouse.model.Task;
+import com.warehouse.pathfinding.DistanceFieldCache;
+import com.warehouse.pathfinding.GridMap;
+import com.warehouse.view.WarehouseGrid;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WavePlannerTest {
+    private final WarehouseGrid grid;
+
+    WavePlannerTest() {
+        List<Point> shelves = new ArrayList<>();
+        for (int y = 1; y < 9; y++) {
+            shelves.add(new Point(1, y));
+            shelves.add(new Point(2, y));
+        }
+        GridMap map = new GridMap(6, 10, shelves);
+        grid = new WarehouseGrid(10, 6, 10, shelves, List.of(new Point(0, 0)), List.of(new Point(5, 0)),
+                List.of(new Point(0, 9)), new ArrayList<Robot>(), new DistanceFieldCache(map));
+    }
+
+    private static Task order(int shelfY) {
+        Product product = new Product("Weber", "Grills", "", 0);
+        product.setLocationX(1);
+        product.setLocationY(shelfY);
+        return new Task("OUTBOUND", List.of(product), 0);
+    }
+
+    @Test
+    void releasesWaveAtItsDeadline() {
+        WavePlanner planner = new WavePlanner(grid, 1000, 20, 3);
+        assertEquals(Long.MAX_VALUE, planner.getDeadline());
+
+        planner.offer(order(1), 500);
+        planner.offer(order(2), 900);
+
+        // 截止时间从第一个订单算起
+        assertEquals(1500, planner.getDeadline());
+        assertTrue(planner.poll(1499).isEmpty());
+        List<Task> released = planner.poll(1500);
+        assertEquals(1, released.size());
+        assertEquals(2, released.get(0).getProducts().size());
+        assertEquals(500, released.get(0).getCreatedAtMillis());
+        assertEquals(Long.MAX_VALUE, planner.getDeadline());
+    }
+
+    @Test
+    void releasesFullWaveBeforeDeadline() {
+        WavePlanner planner = new WavePlanner(grid, 1000, 2, 3);
+        planner.offer(order(1), 0);
+        planner.offer(order(2), 10);
+
+        assertEquals(1, planner.poll(10).size());
+    }
+
+    @Test
+    void splitsWaveByItemLimit() {
+        WavePlanner planner = new WavePlanner(grid, 1000, 20, 2);
+        for (int y = 1; y <= 5; y++) {
+            planner.offer(order(y), 0);
+        }
+
+        List<Task> released = planner.poll(1000);
+        assertEquals(3, released.size());
+        int items = 0;
+        for (Task task : released) {
+            assertTrue(task.getProducts().size() <= 2);
+            items += task.getProducts().size();
+        }
+        assertEquals(5, items);
+    }
+
+    @Test
+    void zeroWindowPassesOrdersThrough() {
+        WavePlanner planner = new WavePlanner(grid, 0, 20, 3);
+        Task order = order(1);
+        planner.offer(order, 0);
+
+        assertEquals(List.of(order), planner.poll(0));
+    }
+}
@@ -0,0 +1,164 @@
+package com.warehouse.simulation;
+
+import com.warehouse.entity.Robot;
+import com.warehouse.pathfinding.BfsPlanner;
+import com.warehouse.pathfinding.GridMap;
+import com.warehouse.pathfinding.PathPlanner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MovementSchedulerTest {
+    private final GridMap map = new GridMap(30, 3, List.of());
+    private final VirtualClock clock = new VirtualClock();
+    private final MovementScheduler scheduler = new MovementScheduler(clock);
+    // 每一次换格子的 (机器人编号, 虚拟时间毫秒)
+    private final List<long[]> moves = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void enterClock() {
+        // 测试线程也是参与线程，它睡眠时虚拟时间才前进
+        clock.enter();
+    }
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.stop();
+        clock.exit();
+    }
+
+    private Robot robot(int id, int row, int speed) {
+        BfsPlanner planner = new BfsPlanner(map);
+        PathPlanner recording = new PathPlanner() {
+            @Override
+            public GridMap getGridMap() {
+                return map;
+            }
+
+            @Override
+            public int plan(int startX, int startY, int targetX, int targetY) {
+                return planner.plan(startX, startY, targetX, targetY);
+            }
+
+            @Override
+            public int[] getPath() {
+                return planner.getPath();
+            }
+
+            @Override
+            public boolean tryEnter(int fromX, int fromY, int toX, int toY) {
+                moves.add(new long[] { id, clock.currentTimeMillis() });
+                return true;
+            }
+        };
+        return new Robot(id, 0, row, 1, List.of(new Point(0, row)), recording, (char) ('A' + id - 1), speed);
+    }
+
+    private List<Long> movesOf(int id) {
+        List<Long> times = new ArrayList<>();
+        for (long[] move : moves) {
+            if (move[0] == id) {
+                times.add(move[1]);
+            }
+        }
+        return times;
+    }
+
+    private static void assertSteps(List<Long> times, long from, long stepMillis) {
+        for (int i = 0; i < times.size(); i++) {
+            assertEquals(from + i * stepMillis, (long) times.get(i));
+        }
+    }
+
+    @Test
+    void robotsStepInOrderOfNextMoveTime() throws InterruptedException {
+        Robot slow = robot(1, 0, 1);
+        Robot fast = robot(2, 1, 2);
+        scheduler.attach(List.of(slow, fast));
+        scheduler.start();
+        slow.moveTo(29, 0);
+        fast.moveTo(29, 1);
+
+        clock.sleep(7000);
+
+        // 路径第一格是起点：第一步原地不动，第二步开始换格子
+        long slowStep = Robot.stepMillis(1);
+        long fastStep = Robot.stepMillis(2);
+        assertSteps(movesOf(1), 2 * slowStep, slowStep);
+        assertSteps(movesOf(2), 2 * fastStep, fastStep);
+        assertEquals(5, movesOf(1).size());
+        assertEquals(10, movesOf(2).size());
+        // 整体按时间先后，同一时刻先注册的机器人先走
+        for (int i = 1; i < moves.size(); i++) {
+            long[] previous = moves.get(i - 1);
+            long[] current = moves.get(i);
+            assertTrue(previous[1] < current[1] || (previous[1] == current[1] && previous[0] < current[0]));
+        }
+        assertTrue(moves.stream().anyMatch(move -> move[1] == 6600 && move[0] == 1));
+        assertTrue(moves.stream().anyMatch(move -> move[1] == 6600 && move[0] == 2));
+    }
+
+    @Test
+    void speedChangeTakesEffectAfterTheAlreadyScheduledStep() throws InterruptedException {
+        Robot steady = robot(1, 0, 1);
+        Robot changing = robot(2, 1, 1);
+        scheduler.attach(List.of(steady, changing));
+        scheduler.start();
+        steady.moveTo(29, 0);
+        changing.moveTo(29, 1);
+
+        long step = Robot.stepMillis(1);
+        clock.sleep(2 * step + 300);
+        changing.setSpeed(4);
+        clock.sleep(3 * step);
+
+        // 已经排好的下一步不变，之后按新的步长重新排序
+        long fastStep = Robot.stepMillis(4);
+        List<Long> changed = movesOf(2);
+        assertEquals(List.of(2 * step, 3 * step), changed.subList(0, 2));
+        assertSteps(changed.subList(1, changed.size()), 3 * step, fastStep);
+        assertSteps(movesOf(1), 2 * step, step);
+        for (int i = 1; i < moves.size(); i++) {
+            assertTrue(moves.get(i - 1)[1] <= moves.get(i)[1]);
+        }
+    }
+
+    @Test
+    void attachAndStopWhileRobotsAreMidLeg() throws InterruptedException {
+        Robot first = robot(1, 0, 1);
+        scheduler.attach(List.of(first));
+        scheduler.start();
+        first.moveTo(29, 0);
+
+        long step = Robot.stepMillis(1);
+        clock.sleep(2 * step + 300);
+        // 运行中登记的机器人从下一次 moveTo 开始由调度器推进，已经在走的机器人不受影响
+        Robot second = robot(2, 1, 1);
+        scheduler.attach(List.of(second));
+        second.moveTo(29, 1);
+        clock.sleep(3 * step - 200);
+
+        assertSteps(movesOf(1), 2 * step, step);
+        assertEquals(4, movesOf(1).size());
+        assertSteps(movesOf(2), 4 * step + 300, step);
+        assertEquals(1, movesOf(2).size());
+
+        // 停止后不再推进，机器人停在路上
+        scheduler.stop();
+        int x = first.getX();
+        int count = moves.size();
+        clock.sleep(TimeUnit.MINUTES.toMillis(1));
+        assertEquals(x, first.getX());
+        assertEquals(count, moves.size());
+        assertTrue(first.hasPendingSteps());
+    }
+}
@@ -0,0 +1,110 @@
+package com.warehouse.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualClockTest {
+    private final VirtualClock clock = new VirtualClock();
+
+    private interface ClockTask {
+        void run() throws Exception;
+    }
+
+    private Thread participant(ClockTask task) {
+        Thread thread = new Thread(clock.participant(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    void timeAdvancesOnlyWhenEveryParticipantIsBlocked() throws InterruptedException {
+        clock.enter();
+        Thread sleeper = participant(() -> clock.sleep(500));
+
+        // 测试线程还在运行：虚拟时间不动，睡眠的线程一直等着
+        sleeper.join(200);
+        assertTrue(sleeper.isAlive());
+        assertEquals(0, clock.currentTimeMillis());
+
+        // 测试线程也睡眠后时间才前进，先到期的线程先醒
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> clock.sleep(1000));
+        sleeper.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(sleeper.isAlive());
+        assertEquals(1000, clock.currentTimeMillis());
+        clock.exit();
+    }
+
+    @Test
+    void sleepersWakeInOrderOfDeadline() throws InterruptedException {
+        List<Long> woken = new CopyOnWriteArrayList<>();
+        clock.enter();
+        for (long millis : new long[] { 300, 100, 200 }) {
+            participant(() -> {
+                clock.sleep(millis);
+                woken.add(clock.currentTimeMillis());
+            });
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> clock.sleep(400));
+        clock.exit();
+
+        assertEquals(List.of(100L, 200L, 300L), woken);
+    }
+
+    @Test
+    void awaitWithTimeoutReturnsWhenFutureCompletesFirst() throws InterruptedException {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        List<Object> results = new CopyOnWriteArrayList<>();
+        clock.enter();
+        Thread waiter = participant(() -> {
+            results.add(clock.await(future, 1000, TimeUnit.MILLISECONDS));
+            results.add(clock.currentTimeMillis());
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> clock.sleep(200));
+        future.complete("done");
+        waiter.join(TimeUnit.SECONDS.toMillis(5));
+        assertEquals(List.of("done", 200L), results);
+
+        // 已经完成的等待留下的定时事件不会把时间提前推到它的超时时刻
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> clock.sleep(2000));
+        assertEquals(2200, clock.currentTimeMillis());
+        clock.exit();
+    }
+
+    @Test
+    void awaitWithTimeoutThrowsAfterTheTimeout() throws InterruptedException {
+        CompletableFuture<String> never = new CompletableFuture<>();
+        List<Object> results = new CopyOnWriteArrayList<>();
+        clock.enter();
+        Thread waiter = participant(() -> {
+            assertThrows(TimeoutException.class, () -> clock.await(never, 500, TimeUnit.MILLISECONDS));
+            results.add(clock.currentTimeMillis());
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> clock.sleep(1000));
+        waiter.join(TimeUnit.SECONDS.toMillis(5));
+        clock.exit();
+
+        assertEquals(List.of(500L), results);
+        assertFalse(never.isDone());
+    }
+}
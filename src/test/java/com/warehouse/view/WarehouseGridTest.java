@@ -0,0 +1,73 @@
+package com.warehouse.view;
+
+import com.warehouse.entity.Robot;
+import com.warehouse.pathfinding.DistanceFieldCache;
+import com.warehouse.pathfinding.GridMap;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class WarehouseGridTest {
+    private static final int CELL = 10;
+
+    private final List<Point> shelves = new ArrayList<>();
+    private int fullRepaints;
+
+    private WarehouseGrid grid() {
+        for (int y = 1; y < 9; y++) {
+            shelves.add(new Point(1, y));
+            shelves.add(new Point(2, y));
+        }
+        GridMap map = new GridMap(6, 10, shelves);
+        return new WarehouseGrid(CELL, 6, 10, shelves, List.of(new Point(0, 0)), List.of(new Point(5, 0)),
+                List.of(new Point(0, 9)), new ArrayList<Robot>(), new DistanceFieldCache(map)) {
+            @Override
+            public void repaint() {
+                fullRepaints++;
+            }
+        };
+    }
+
+    private static BufferedImage paint(WarehouseGrid grid, int x, int y, int width, int height) {
+        BufferedImage image = new BufferedImage(6 * CELL, 10 * CELL, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setClip(x, y, width, height);
+        grid.paintComponent(g);
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    void cellRepaintDoesNotSwallowLayoutChange() throws Exception {
+        // 面板的定时器在事件分发线程上调用 actionPerformed，整个过程放在同一个事件里执行，中间不会插入定时器事件
+        SwingUtilities.invokeAndWait(this::repaintAfterLayoutChange);
+    }
+
+    private void repaintAfterLayoutChange() {
+        WarehouseGrid grid = grid();
+        grid.actionPerformed(null);
+        fullRepaints = 0;
+        int before = paint(grid, 0, 0, 6 * CELL, 10 * CELL).getRGB(5 * CELL + CELL / 2, 9 * CELL + CELL / 2);
+
+        // 热更新后、下一帧之前，已排队的单个格子重绘先执行
+        grid.setCounters(List.of(new Point(0, 0)), List.of(new Point(5, 9)));
+        paint(grid, 3 * CELL, 4 * CELL, CELL, CELL);
+        grid.actionPerformed(null);
+
+        assertEquals(1, fullRepaints);
+        int after = paint(grid, 0, 0, 6 * CELL, 10 * CELL).getRGB(5 * CELL + CELL / 2, 9 * CELL + CELL / 2);
+        assertNotEquals(before, after);
+
+        // 布局不再变化时不重绘整个面板
+        grid.actionPerformed(null);
+        assertEquals(1, fullRepaints);
+    }
+}